@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import org.caleydo.core.id.IDType;
+
+/**
+ * resolves {@link IDType}s to the columns of a {@link IMultiTypedCollection} once per operation, such that per row
+ * and per comparison code just uses int column indices
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class ColumnPlan {
+	private ColumnPlan() {
+
+	}
+
+	/**
+	 * @param idTypes
+	 *            the columns
+	 * @param idType
+	 * @return the column of the given id type or -1 if not part
+	 */
+	static int column(IDType[] idTypes, IDType idType) {
+		for (int i = 0; i < idTypes.length; ++i)
+			if (idTypes[i] == idType)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @param idTypes
+	 *            the columns
+	 * @param comparators
+	 * @return for each comparator the column of its id type or -1 if not part
+	 */
+	static int[] columns(IDType[] idTypes, ITypedComparator... comparators) {
+		int[] r = new int[comparators.length];
+		for (int i = 0; i < comparators.length; ++i)
+			r[i] = column(idTypes, comparators[i].getIdType());
+		return r;
+	}
+}
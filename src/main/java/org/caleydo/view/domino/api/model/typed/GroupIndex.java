@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.caleydo.view.domino.api.model.typed.util.IntIndex;
+
+/**
+ * lookup from id to the index of the first group containing it.
+ *
+ * compact non negative ids use a dense <code>int[]</code> of group codes, others an {@link IntIndex} over the
+ * concatenated group ids
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class GroupIndex {
+	private final int[] dense;
+	private final IntIndex index;
+	private final int[] codes;
+
+	private GroupIndex(int[] dense, IntIndex index, int[] codes) {
+		this.dense = dense;
+		this.index = index;
+		this.codes = codes;
+	}
+
+	static GroupIndex of(List<? extends TypedSet> groups) {
+		int total = 0;
+		for (TypedSet g : groups)
+			total += g.size();
+		int[] ids = new int[total];
+		int[] codes = new int[total];
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		int k = 0;
+		for (int i = 0; i < groups.size(); ++i) {
+			for (Integer id : groups.get(i)) {
+				final int v = id.intValue();
+				ids[k] = v;
+				codes[k++] = i;
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+		}
+		if (total == 0)
+			return new GroupIndex(new int[0], null, null);
+		if (min >= 0 && max < 4L * total + 1024) {
+			int[] dense = new int[max + 1];
+			Arrays.fill(dense, -1);
+			for (int i = total - 1; i >= 0; --i) // backwards such that the first group wins
+				dense[ids[i]] = codes[i];
+			return new GroupIndex(dense, null, null);
+		}
+		return new GroupIndex(null, IntIndex.of(ids, 0, total), codes);
+	}
+
+	/**
+	 * @param id
+	 * @return the index of the first group containing the id or -1 if none
+	 */
+	int indexOf(int id) {
+		if (dense != null)
+			return id >= 0 && id < dense.length ? dense[id] : -1;
+		int i = index.indexOf(id);
+		return i < 0 ? -1 : codes[i];
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.caleydo.core.id.IDType;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * registry of small integer codes for {@link IDType}s, such that a {@link TypedID} can be packed into a single long:
+ * the code in the high and the id in the low 32 bits
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class IDTypeCodes {
+	private static final Map<IDType, Short> codes = new ConcurrentHashMap<>();
+	private static volatile IDType[] types = new IDType[0];
+
+	private IDTypeCodes() {
+
+	}
+
+	/**
+	 * @param idType
+	 * @return the code of the given id type, assigned on first use
+	 */
+	public static short code(IDType idType) {
+		Short c = codes.get(idType);
+		if (c != null)
+			return c.shortValue();
+		synchronized (IDTypeCodes.class) {
+			c = codes.get(idType);
+			if (c != null)
+				return c.shortValue();
+			IDType[] t = types;
+			Preconditions.checkState(t.length < Short.MAX_VALUE, "too many id types");
+			t = Arrays.copyOf(t, t.length + 1);
+			t[t.length - 1] = idType;
+			types = t;
+			codes.put(idType, (short) (t.length - 1));
+			return (short) (t.length - 1);
+		}
+	}
+
+	/**
+	 * @param code
+	 * @return the id type of the given code
+	 */
+	public static IDType idType(short code) {
+		return types[code];
+	}
+
+	public static long pack(IDType idType, int id) {
+		return pack(code(idType), id);
+	}
+
+	public static long pack(short code, int id) {
+		return ((long) code << 32) | (id & 0xFFFFFFFFL);
+	}
+
+	public static short codeOf(long packed) {
+		return (short) (packed >>> 32);
+	}
+
+	public static IDType idTypeOf(long packed) {
+		return idType(codeOf(packed));
+	}
+
+	public static int idOf(long packed) {
+		return (int) packed;
+	}
+
+	public static TypedID unpack(long packed) {
+		return new TypedID(idOf(packed), idTypeOf(packed));
+	}
+}
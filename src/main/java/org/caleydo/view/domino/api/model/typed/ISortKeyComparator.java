@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+/**
+ * a {@link ITypedComparator} which can compute primitive sort keys for many ids at once, instead of being called for
+ * each comparison
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public interface ISortKeyComparator extends ITypedComparator {
+	/**
+	 * @param ids
+	 *            ids of {@link #getIdType()}, might contain {@link TypedCollections#INVALID_ID}
+	 * @return a key for each id, such that comparing the keys is consistent with {@link #compare(Object, Object)}
+	 */
+	int[] sortKeys(int[] ids);
+}
@@ -5,41 +5,73 @@
  *******************************************************************************/
 package org.caleydo.view.domino.api.model.typed;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+
 import org.caleydo.core.id.IDMappingManager;
 import org.caleydo.core.id.IDMappingManagerRegistry;
 import org.caleydo.core.id.IDType;
 import org.caleydo.core.id.IIDTypeMapper;
 import org.caleydo.core.util.collection.Pair;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
 
 /**
- * mapping cache utilities
+ * process wide cache of precomputed {@link MappingTable}s, the least recently used tables are evicted if the memory
+ * budget is exceeded
+ *
+ * the tables reflect the state of the mappings at the time they were created, {@link #invalidate()} is called whenever a
+ * data domain is added, updated or removed. Missing mappings are not cached, such that they are found as soon as they
+ * are registered
  *
  * @author Samuel Gratzl
  *
  */
 public class MappingCaches {
-
 	/**
-	 * create a mapping cache for converting to a fix source or targets assert that source or target is null
-	 * 
-	 * @param source
-	 * @param target
-	 * @return
+	 * memory budget of all cached tables in bytes
 	 */
-	public static LoadingCache<IDType, IIDTypeMapper<Integer, Integer>> create(IDType source, IDType target) {
-		return CacheBuilder.newBuilder().build(new MapperCache(source, target));
+	private static final long MEMORY_BUDGET = 64 * 1024 * 1024;
+
+	// a single segment, such that the whole budget is available to a large table
+	private static final Cache<Pair<IDType, IDType>, MappingTable> TABLES = CacheBuilder.newBuilder().concurrencyLevel(1)
+			.maximumWeight(MEMORY_BUDGET).weigher(new Weigher<Pair<IDType, IDType>, MappingTable>() {
+				@Override
+				public int weigh(Pair<IDType, IDType> key, MappingTable value) {
+					return value.memory();
+				}
+			}).build();
+
+	private MappingCaches() {
+
 	}
 
 	/**
+	 * returns the shared mapping table between the two given id types
 	 *
-	 * @return a generic cache for creating a mapper
+	 * @param from
+	 * @param to
+	 * @return the table or null if there is no mapping
 	 */
-	public static LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> create() {
-		return CacheBuilder.newBuilder().build(new MapperCache2());
+	public static MappingTable get(IDType from, IDType to) {
+		Pair<IDType, IDType> key = Pair.make(from, to);
+		MappingTable t = TABLES.getIfPresent(key);
+		if (t != null)
+			return t;
+		t = create(from, to);
+		if (t != null)
+			TABLES.put(key, t);
+		return t;
+	}
+
+	/**
+	 * drops all cached tables, e.g. after the underlying mappings changed
+	 */
+	public static void invalidate() {
+		TABLES.invalidateAll();
 	}
 
 	/**
@@ -56,38 +88,24 @@ public class MappingCaches {
 		return m.getIDTypeMapper(from, to);
 	}
 
-	private static final class MapperCache extends CacheLoader<IDType, IIDTypeMapper<Integer, Integer>> {
-		private final IDType source;
-		private final IDType target;
-
-		private final IDMappingManager manager;
-
-		public MapperCache(IDType source, IDType target) {
-			this.source = source;
-			this.target = target;
-			assert this.source != null ^ this.target != null; // exactly one is null
-			IDType i = source != null ? source : target;
-			manager = IDMappingManagerRegistry.get().getIDMappingManager(i);
-		}
-
-		@Override
-		public IIDTypeMapper<Integer, Integer> load(IDType key) {
-			IDType s = source == null ? key : source;
-			IDType t = target == null ? key : target;
-			return manager.getIDTypeMapper(s, t);
-		}
+	private static MappingTable create(IDType source, IDType target) {
+		IDMappingManager m = IDMappingManagerRegistry.get().getIDMappingManager(source);
+		if (m == null)
+			return null;
+		IIDTypeMapper<Integer, Integer> mapper = m.getIDTypeMapper(source, target);
+		if (mapper == null)
+			return null;
+		return MappingTable.create(mapper, allIDs(m, source));
 	}
 
-	private static final class MapperCache2 extends CacheLoader<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> {
-		@Override
-		public IIDTypeMapper<Integer, Integer> load(Pair<IDType, IDType> key) throws Exception {
-			assert key != null;
-			IDType source = key.getFirst();
-			IDType target = key.getSecond();
-			IDMappingManager m = IDMappingManagerRegistry.get().getIDMappingManager(source);
-			if (m == null)
-				return null;
-			return m.getIDTypeMapper(source, target);
-		}
+	private static Collection<Integer> allIDs(IDMappingManager m, IDType source) {
+		Set<?> ids = m.getAllMappedIDs(source);
+		Collection<Integer> r = new ArrayList<>(ids == null ? 0 : ids.size());
+		if (ids == null)
+			return r;
+		for (Object id : ids)
+			if (id instanceof Integer)
+				r.add((Integer) id);
+		return r;
 	}
 }
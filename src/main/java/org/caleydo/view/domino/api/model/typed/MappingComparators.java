@@ -5,18 +5,12 @@
  *******************************************************************************/
 package org.caleydo.view.domino.api.model.typed;
 
-import static org.caleydo.view.domino.api.model.typed.TypedCollections.mapSingle;
+import static org.caleydo.view.domino.api.model.typed.TypedCollections.INVALID_ID;
 
 import java.util.Comparator;
-import java.util.Map;
 
 import org.caleydo.core.id.IDType;
-import org.caleydo.core.id.IIDTypeMapper;
-import org.caleydo.core.util.collection.Pair;
 
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
 
 /**
  * set of comparator that handle conversion of ids for {@link ITypedComparator} correctly
@@ -60,8 +54,6 @@ public class MappingComparators {
 
 	private static final class Complex implements Comparator<TypedID> {
 		private final ITypedComparator[] comparators;
-		private final LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache = MappingCaches.create();
-
 		/**
 		 * @param comparators
 		 */
@@ -87,14 +79,17 @@ public class MappingComparators {
 			if (source.equals(target)) // optimize
 				return id.getId();
 
-			IIDTypeMapper<Integer, Integer> m = cache.apply(Pair.make(source, target));
-			return mapSingle(m, id.getId());
+			MappingTable m = MappingCaches.get(source, target);
+			return m == null ? INVALID_ID : m.mapSingle(id.getId());
 		}
 	}
 
 	private static final class Multi implements Comparator<int[]> {
 		private final ITypedComparator[] comparators;
-		private final Map<IDType, Integer> lookup;
+		/**
+		 * column for each comparator, -1 if there is nothing to compare
+		 */
+		private final int[] columns;
 
 		/**
 		 * @param idTypes
@@ -102,22 +97,16 @@ public class MappingComparators {
 		 */
 		public Multi(IDType[] idTypes, ITypedComparator... comparators) {
 			this.comparators = comparators;
-			Builder<IDType, Integer> builder = ImmutableMap.builder();
-			for (int i = 0; i < idTypes.length; ++i)
-				builder.put(idTypes[i], i);
-			this.lookup = builder.build();
+			this.columns = ColumnPlan.columns(idTypes, comparators);
 		}
 
 		@Override
 		public int compare(int[] o1, int[] o2) {
-			for (ITypedComparator c : comparators) {
-				IDType target = c.getIdType();
-				Integer index = lookup.get(target);
-				if (index == null) // nothing to map
+			for (int i = 0; i < comparators.length; ++i) {
+				final int index = columns[i];
+				if (index < 0) // nothing to map
 					continue;
-				Integer id1 = o1[index];
-				Integer id2 = o2[index];
-				int r = c.compare(id1, id2);
+				int r = comparators[i].compare(o1[index], o2[index]);
 				if (r != 0)
 					return r;
 			}
@@ -130,7 +119,10 @@ public class MappingComparators {
 
 	private static final class Single implements ITypedComparator {
 		private final ITypedComparator[] comparators;
-		private final LoadingCache<IDType, IIDTypeMapper<Integer, Integer>> cache;
+		/**
+		 * mapping table for each comparator, null for the identity
+		 */
+		private final MappingTable[] tables;
 		private final IDType source;
 
 		/**
@@ -139,7 +131,12 @@ public class MappingComparators {
 		public Single(IDType idType, ITypedComparator... comparators) {
 			this.source = idType;
 			this.comparators = comparators;
-			cache = MappingCaches.create(idType, null);
+			this.tables = new MappingTable[comparators.length];
+			for (int i = 0; i < comparators.length; ++i) {
+				IDType target = comparators[i].getIdType();
+				if (!source.equals(target))
+					tables[i] = MappingCaches.get(source, target);
+			}
 		}
 
 		@Override
@@ -149,11 +146,11 @@ public class MappingComparators {
 
 		@Override
 		public int compare(Integer o1, Integer o2) {
-			for (ITypedComparator c : comparators) {
-				IDType target = c.getIdType();
+			for (int i = 0; i < comparators.length; ++i) {
+				ITypedComparator c = comparators[i];
 				// map to target type
-				Integer id1 = map(o1, target);
-				Integer id2 = map(o2, target);
+				Integer id1 = map(o1, i);
+				Integer id2 = map(o2, i);
 				int r = c.compare(id1, id2);
 				if (r != 0)
 					return r;
@@ -161,11 +158,11 @@ public class MappingComparators {
 			return o1.compareTo(o2);
 		}
 
-		private Integer map(Integer id, IDType target) {
-			if (source.equals(target)) // identity
+		private Integer map(Integer id, int comparator) {
+			if (source.equals(comparators[comparator].getIdType())) // identity
 				return id;
-			IIDTypeMapper<Integer, Integer> m = cache.apply(target);
-			return mapSingle(m, id);
+			MappingTable m = tables[comparator];
+			return m == null ? INVALID_ID : m.mapSingle(id);
 		}
 	}
 
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import static org.caleydo.view.domino.api.model.typed.TypedCollections.INVALID_ID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.caleydo.core.id.IDType;
+import org.caleydo.core.id.IIDTypeMapper;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * a precomputed mapping between two {@link IDType}s stored in dense int arrays indexed by the source id
+ *
+ * functional mappings (at most one target per source id) are stored as a single lookup array, n:m mappings in a
+ * compressed sparse row layout, i.e. an array of start offsets into the concatenated targets. Ids outside of the
+ * precomputed range are delegated to the underlying {@link IIDTypeMapper}
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class MappingTable {
+	/**
+	 * maximal ratio between the id range and the number of source ids to use a dense table
+	 */
+	private static final int MAX_SPARSITY = 4;
+
+	private final IIDTypeMapper<Integer, Integer> mapper;
+	/**
+	 * smallest source id
+	 */
+	private final int offset;
+	/**
+	 * start offsets into {@link #values} of length n+1 or null if the mapping is functional
+	 */
+	private final int[] starts;
+	/**
+	 * the target ids
+	 */
+	private final int[] values;
+
+	private MappingTable(IIDTypeMapper<Integer, Integer> mapper, int offset, int[] starts, int[] values) {
+		this.mapper = mapper;
+		this.offset = offset;
+		this.starts = starts;
+		this.values = values;
+	}
+
+	/**
+	 * materializes the given mapper for all the given source ids
+	 *
+	 * @param mapper
+	 * @param ids
+	 *            all known ids of the source type
+	 * @return
+	 */
+	public static MappingTable create(IIDTypeMapper<Integer, Integer> mapper, Collection<Integer> ids) {
+		if (ids.isEmpty())
+			return new MappingTable(mapper, 0, null, null);
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		for (Integer id : ids) {
+			min = Math.min(min, id);
+			max = Math.max(max, id);
+		}
+		final long range = (long) max - min + 1;
+		if (range > (long) ids.size() * MAX_SPARSITY + 1024) // too sparse, just delegate
+			return new MappingTable(mapper, 0, null, null);
+
+		final int n = (int) range;
+		List<Integer> domain = ids instanceof List<?> ? (List<Integer>) ids : new ArrayList<>(ids);
+		List<Set<Integer>> targets = mapper.applySeq(domain);
+		if (targets == null)
+			return new MappingTable(mapper, 0, null, null);
+
+		boolean functional = true;
+		int total = 0;
+		for (Set<Integer> t : targets) {
+			final int s = t == null ? 0 : t.size();
+			functional &= s <= 1;
+			total += s;
+		}
+
+		if (functional) {
+			int[] values = new int[n];
+			Arrays.fill(values, INVALID_ID);
+			for (int i = 0; i < domain.size(); ++i) {
+				Set<Integer> t = targets.get(i);
+				if (t != null && !t.isEmpty())
+					values[domain.get(i) - min] = t.iterator().next();
+			}
+			return new MappingTable(mapper, min, null, values);
+		}
+
+		// count, prefix sum, fill
+		int[] starts = new int[n + 1];
+		for (int i = 0; i < domain.size(); ++i) {
+			Set<Integer> t = targets.get(i);
+			starts[domain.get(i) - min + 1] = t == null ? 0 : t.size();
+		}
+		for (int i = 0; i < n; ++i)
+			starts[i + 1] += starts[i];
+		int[] values = new int[total];
+		for (int i = 0; i < domain.size(); ++i) {
+			Set<Integer> t = targets.get(i);
+			if (t == null)
+				continue;
+			int j = starts[domain.get(i) - min];
+			for (Integer v : t)
+				values[j++] = v;
+		}
+		return new MappingTable(mapper, min, starts, values);
+	}
+
+	public IDType getSource() {
+		return mapper.getSource();
+	}
+
+	public IDType getTarget() {
+		return mapper.getTarget();
+	}
+
+	public boolean isOne2OneMapping() {
+		return mapper.isOne2OneMapping();
+	}
+
+	/**
+	 * @return the underlying mapper
+	 */
+	public IIDTypeMapper<Integer, Integer> getMapper() {
+		return mapper;
+	}
+
+	private boolean inRange(int id) {
+		return values != null && id >= offset && id - offset < (starts == null ? values.length : starts.length - 1);
+	}
+
+	/**
+	 * @param id
+	 * @return the first mapped id or {@link TypedCollections#INVALID_ID}
+	 */
+	public int mapSingle(int id) {
+		if (!inRange(id))
+			return TypedCollections.mapSingle(mapper, id);
+		final int i = id - offset;
+		if (starts == null)
+			return values[i];
+		return starts[i] < starts[i + 1] ? values[starts[i]] : INVALID_ID;
+	}
+
+	/**
+	 * @param id
+	 * @return all mapped ids
+	 */
+	public Set<Integer> apply(int id) {
+		if (!inRange(id)) {
+			Set<Integer> r = mapper.apply(id);
+			return r == null ? Collections.<Integer> emptySet() : r;
+		}
+		final int i = id - offset;
+		if (starts == null) {
+			final int v = values[i];
+			return v == INVALID_ID ? Collections.<Integer> emptySet() : Collections.singleton(v);
+		}
+		ImmutableSet.Builder<Integer> b = ImmutableSet.builder();
+		for (int j = starts[i]; j < starts[i + 1]; ++j)
+			b.add(values[j]);
+		return b.build();
+	}
+
+	/**
+	 * @param ids
+	 * @return the union of all mapped ids
+	 */
+	public Set<Integer> apply(Iterable<Integer> ids) {
+		RoaringSet r = new RoaringSet();
+		for (Integer id : ids) {
+			if (!inRange(id)) {
+				Set<Integer> m = mapper.apply(id);
+				if (m != null)
+					r.addAll(m);
+				continue;
+			}
+			final int i = id - offset;
+			if (starts == null) {
+				if (values[i] != INVALID_ID)
+					r.add(values[i]);
+			} else {
+				for (int j = starts[i]; j < starts[i + 1]; ++j)
+					r.add(values[j]);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * @param ids
+	 * @return the mapped ids for each of the given ids
+	 */
+	public List<Set<Integer>> applySeq(Collection<Integer> ids) {
+		List<Set<Integer>> r = new ArrayList<>(ids.size());
+		for (Integer id : ids)
+			r.add(apply(id));
+		return r;
+	}
+
+	/**
+	 * @return the estimated memory usage in bytes
+	 */
+	public int memory() {
+		return 32 + 4 * ((values == null ? 0 : values.length) + (starts == null ? 0 : starts.length));
+	}
+}
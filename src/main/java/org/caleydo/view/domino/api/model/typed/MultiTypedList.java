@@ -16,11 +16,7 @@ import org.caleydo.core.id.IDType;
 import org.caleydo.view.domino.api.model.typed.util.RepeatingList;
 
 import com.google.common.base.Function;
-import com.google.common.base.Functions;
-import com.google.common.collect.Collections2;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Lists;
 
 /**
  * a {@link IMultiTypedCollection} with an underlying list
@@ -50,13 +46,19 @@ public class MultiTypedList extends AbstractList<int[]> implements IMultiTypedCo
 	public List<TypedID> asInhomogenous() {
 		if (ids instanceof Single)
 			return new SingleTypedIDList(((Single) ids).data);
-		ImmutableList.Builder<TypedID> b = ImmutableList.builder();
-		for (int i = 0; i < depth(); ++i) {
-			IDType idType = idTypes[i];
-			// select just the slice and map to typed id
-			b.addAll(Collections2.transform(ids, Functions.compose(TypedID.toTypedId(idType), slice(i))));
+		// pack slice by slice without creating TypedIDs
+		final int size = ids.size();
+		long[] packed = new long[size * depth()];
+		short[] codes = new short[depth()];
+		for (int i = 0; i < codes.length; ++i)
+			codes[i] = IDTypeCodes.code(idTypes[i]);
+		int j = 0;
+		for (int[] entry : ids) {
+			for (int i = 0; i < codes.length; ++i)
+				packed[i * size + j] = IDTypeCodes.pack(codes[i], entry[i]);
+			j++;
 		}
-		return b.build();
+		return new PackedTypedIDList(packed);
 	}
 
 	@Override
@@ -77,7 +79,12 @@ public class MultiTypedList extends AbstractList<int[]> implements IMultiTypedCo
 			return new TypedList(RepeatingList.repeat(INVALID_ID, size()), idType);
 		if (depth() == 1 && ids instanceof Single)
 			return ((Single) ids).data;
-		return new TypedList(Lists.transform(ids, slice(index)), idType);
+		// materialize the column, such that accessing it just touches ints
+		int[] r = new int[ids.size()];
+		int j = 0;
+		for (int[] entry : ids)
+			r[j++] = entry[index];
+		return TypedList.of(r, idType);
 	}
 
 	@Override
@@ -85,20 +92,8 @@ public class MultiTypedList extends AbstractList<int[]> implements IMultiTypedCo
 		return idTypes;
 	}
 
-	private Function<int[], Integer> slice(final int index) {
-		return new Function<int[], Integer>() {
-			@Override
-			public Integer apply(int[] input) {
-				return input == null ? null : input[index];
-			}
-		};
-	}
-
 	private int index(IDType idType) {
-		for (int i = 0; i < idTypes.length; ++i)
-			if (idTypes[i] == idType)
-				return i;
-		return -1;
+		return ColumnPlan.column(idTypes, idType);
 	}
 
 	@Override
@@ -16,13 +16,11 @@ import java.util.List;
 import java.util.Set;
 
 import org.caleydo.core.id.IDType;
-import org.caleydo.core.id.IIDTypeMapper;
-import org.caleydo.core.util.collection.Pair;
+import org.caleydo.view.domino.api.model.typed.util.ColumnarTupleSet;
 import org.caleydo.view.domino.api.model.typed.util.RepeatingList;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 
 import com.google.common.base.Function;
-import com.google.common.base.Functions;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -51,13 +49,17 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 	public Set<TypedID> asInhomogenous() {
 		if (ids instanceof Single)
 			return new SingleTypedIDSet(((Single) ids).set);
-		ImmutableSet.Builder<TypedID> b = ImmutableSet.builder();
-		for (int i = 0; i < depth(); ++i) {
-			IDType idType = idTypes[i];
-			// select just the slice and map to typed id
-			b.addAll(Collections2.transform(ids, Functions.compose(TypedID.toTypedId(idType), slice(i))));
-		}
-		return b.build();
+		// pack all slices without creating TypedIDs
+		final int depth = depth();
+		long[] packed = new long[ids.size() * depth];
+		short[] codes = new short[depth];
+		for (int i = 0; i < depth; ++i)
+			codes[i] = IDTypeCodes.code(idTypes[i]);
+		int k = 0;
+		for (int[] entry : ids)
+			for (int i = 0; i < depth; ++i)
+				packed[k++] = IDTypeCodes.pack(codes[i], entry[i]);
+		return PackedTypedIDSet.of(packed, k);
 	}
 
 	public int depth() {
@@ -70,13 +72,17 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 			return new TypedSet(ImmutableSet.<Integer> of(), idType);
 		if (depth() == 1 && ids instanceof Single)
 			return ((Single) ids).set;
-		return new TypedSet(ImmutableSet.copyOf(Collections2.transform(ids, slice(index))), idType);
+		if (ids instanceof ColumnarTupleSet)
+			return new TypedSet(((ColumnarTupleSet) ids).distinct(index), idType);
+		return new TypedSet(RoaringSet.of(Collections2.transform(ids, slice(index))), idType);
 	}
 
 	public TypedList sliceList(IDType idType) {
 		int index = index(idType);
 		if (index < 0)
 			return new TypedList(RepeatingList.repeat(INVALID_ID, size()), idType);
+		if (ids instanceof ColumnarTupleSet) // zero copy
+			return new TypedList(((ColumnarTupleSet) ids).column(index), idType);
 		return new TypedList(ImmutableList.copyOf(Collections2.transform(ids, slice(index))), idType);
 	}
 
@@ -86,11 +92,7 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 	}
 
 	public boolean hasIDType(IDType idType) {
-		for (IDType type : idTypes) {
-			if (type == idType)
-				return true;
-		}
-		return false;
+		return index(idType) >= 0;
 	}
 
 	private Function<int[], Integer> slice(final int index) {
@@ -103,10 +105,7 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 	}
 
 	private int index(IDType idType) {
-		for (int i = 0; i < idTypes.length; ++i)
-			if (idTypes[i] == idType)
-				return i;
-		return -1;
+		return ColumnPlan.column(idTypes, idType);
 	}
 
 	@Override
@@ -114,6 +113,11 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 		return ids.size();
 	}
 
+	@Override
+	public boolean contains(Object o) {
+		return ids.contains(o);
+	}
+
 	@Override
 	public Iterator<int[]> iterator() {
 		return Iterators.unmodifiableIterator(ids.iterator());
@@ -161,13 +165,14 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 		if (toAdd.isEmpty()) // nothing missing
 			return this;
 
-		final LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache = MappingCaches.create();
-		// select the best mapping (in the best case a 1:1 mapping)
-		List<Pair<Integer, IIDTypeMapper<Integer, Integer>>> converters = new ArrayList<>(toAdd.size());
-		for (IDType idType : toAdd) {
-			IDType source = selectBestIDType(cache, idType);
-			int index = index(source);
-			converters.add(Pair.make(index, cache.getUnchecked(Pair.make(source, idType))));
+		// select the best mapping (in the best case a 1:1 mapping), resolved to source columns once
+		final int toAddLength = toAdd.size();
+		int[] sources = new int[toAddLength];
+		MappingTable[] converters = new MappingTable[toAddLength];
+		for (int j = 0; j < toAddLength; ++j) {
+			IDType idType = toAdd.get(j);
+			sources[j] = selectBestColumn(idType);
+			converters[j] = MappingCaches.get(idTypes[sources[j]], idType);
 		}
 
 		final int oldLength = idTypes.length;
@@ -177,35 +182,34 @@ public class MultiTypedSet extends AbstractSet<int[]> implements IMultiTypedColl
 		for(int i = oldLength; i < newLength; ++i)
 			r[i] = toAdd.get(i-oldLength);
 
-		ImmutableSet.Builder<int[]> r_s = ImmutableSet.builder();
+		ColumnarTupleSet r_s = new ColumnarTupleSet(newLength, size());
 		for(int[] entry : this.ids) {
 			int[] new_ = Arrays.copyOf(entry, newLength);
 			// map all missing entries
 			for(int i = oldLength; i < newLength; ++i) {
 				int j = i - oldLength;
-				Pair<Integer, IIDTypeMapper<Integer, Integer>> p = converters.get(j);
-				new_[i] = TypedCollections.mapSingle(p.getSecond(), new_[p.getFirst()]);
+				MappingTable m = converters[j];
+				new_[i] = m == null ? INVALID_ID : m.mapSingle(new_[sources[j]]);
 			}
 			r_s.add(new_);
 		}
-		return new MultiTypedSet(r, r_s.build());
+		return new MultiTypedSet(r, r_s);
 	}
 
 	/**
-	 * @param cache
 	 * @param idType
+	 * @return the column to map the given id type from
 	 */
-	private IDType selectBestIDType(LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache,
-			IDType idType) {
-		IIDTypeMapper<Integer, Integer> mapper;
-		for (IDType act : idTypes) {
-			mapper = cache.getUnchecked(Pair.make(act, idType));
+	private int selectBestColumn(IDType idType) {
+		MappingTable mapper;
+		for (int i = 0; i < idTypes.length; ++i) {
+			mapper = MappingCaches.get(idTypes[i], idType);
 			if (mapper == null)
 				continue;
 			if (mapper.isOne2OneMapping())
-				return act;
+				return i;
 		}
-		return idTypes[0]; // any is possible
+		return 0; // any is possible
 
 	}
 
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * an inhomogenous list of {@link TypedID}s stored as packed longs, see {@link IDTypeCodes}, the {@link TypedID}s are
+ * just created on access
+ *
+ * @author Samuel Gratzl
+ *
+ */
+class PackedTypedIDList extends AbstractList<TypedID> implements RandomAccess {
+	private final long[] packed;
+
+	/**
+	 * @param packed
+	 *            not copied
+	 */
+	public PackedTypedIDList(long[] packed) {
+		this.packed = packed;
+	}
+
+	@Override
+	public TypedID get(int index) {
+		return IDTypeCodes.unpack(packed[index]);
+	}
+
+	public long getPacked(int index) {
+		return packed[index];
+	}
+
+	@Override
+	public int size() {
+		return packed.length;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (!(o instanceof TypedID))
+			return -1;
+		TypedID t = (TypedID) o;
+		final long v = IDTypeCodes.pack(t.getIdType(), t.getId());
+		for (int i = 0; i < packed.length; ++i)
+			if (packed[i] == v)
+				return i;
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+
+/**
+ * an inhomogenous set of {@link TypedID}s stored as sorted distinct packed longs, see {@link IDTypeCodes}
+ *
+ * all ids of an {@link IDType} form a continuous range, lookups use a binary search and set operations are linear
+ * scans over both arrays
+ *
+ * @author Samuel Gratzl
+ *
+ */
+class PackedTypedIDSet extends AbstractSet<TypedID> {
+	private final long[] packed;
+
+	/**
+	 * @param packed
+	 *            sorted and distinct, not copied
+	 */
+	private PackedTypedIDSet(long[] packed) {
+		this.packed = packed;
+	}
+
+	/**
+	 * @param packed
+	 *            packed ids in any order, with duplicates, modified
+	 * @param size
+	 *            number of valid entries
+	 * @return
+	 */
+	static PackedTypedIDSet of(long[] packed, int size) {
+		Arrays.sort(packed, 0, size);
+		int m = 0;
+		for (int i = 0; i < size; ++i)
+			if (m == 0 || packed[m - 1] != packed[i])
+				packed[m++] = packed[i];
+		return new PackedTypedIDSet(m == packed.length ? packed : Arrays.copyOf(packed, m));
+	}
+
+	@Override
+	public int size() {
+		return packed.length;
+	}
+
+	@Override
+	public Iterator<TypedID> iterator() {
+		return new Iterator<TypedID>() {
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < packed.length;
+			}
+
+			@Override
+			public TypedID next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return IDTypeCodes.unpack(packed[i++]);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof TypedID))
+			return false;
+		TypedID t = (TypedID) o;
+		return contains(t.getIdType(), t.getId());
+	}
+
+	public boolean contains(IDType idType, int id) {
+		return Arrays.binarySearch(packed, IDTypeCodes.pack(idType, id)) >= 0;
+	}
+
+	/**
+	 * @return the ids of each contained {@link IDType}
+	 */
+	public Collection<TypedSet> toTypedSets() {
+		List<TypedSet> r = new ArrayList<>();
+		for (int from = 0; from < packed.length;) {
+			final short code = IDTypeCodes.codeOf(packed[from]);
+			RoaringSet ids = new RoaringSet();
+			int to = from;
+			for (; to < packed.length && IDTypeCodes.codeOf(packed[to]) == code; ++to)
+				ids.add(IDTypeCodes.idOf(packed[to]));
+			r.add(new TypedSet(ids, IDTypeCodes.idType(code)));
+			from = to;
+		}
+		return r;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof PackedTypedIDSet)
+			return Arrays.equals(packed, ((PackedTypedIDSet) o).packed);
+		return super.equals(o);
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import static org.caleydo.view.domino.api.model.typed.TypedCollections.INVALID_ID;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.util.IntList;
+
+/**
+ * extraction of primitive sort keys for {@link ITypedComparator}s, such that the actual sorting doesn't need to map
+ * ids or call comparators
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class SortKeys {
+	private SortKeys() {
+
+	}
+
+	/**
+	 * @param c
+	 * @param ids
+	 *            ids of the comparator's id type
+	 * @return the sort keys of the given ids according to the given comparator
+	 */
+	public static int[] of(ITypedComparator c, int[] ids) {
+		if (c instanceof ISortKeyComparator)
+			return ((ISortKeyComparator) c).sortKeys(ids);
+		return rank(ids, c);
+	}
+
+	/**
+	 * generic key extraction: ranks the distinct ids using the comparator, such that each distinct id is compared just
+	 * O(log n) times
+	 *
+	 * @param ids
+	 * @param c
+	 * @return the dense rank of each id
+	 */
+	public static int[] rank(int[] ids, Comparator<? super Integer> c) {
+		int[] distinct = ids.clone();
+		Arrays.sort(distinct);
+		int m = 0;
+		for (int i = 0; i < distinct.length; ++i)
+			if (m == 0 || distinct[m - 1] != distinct[i])
+				distinct[m++] = distinct[i];
+
+		Integer[] order = new Integer[m];
+		for (int i = 0; i < m; ++i)
+			order[i] = distinct[i];
+		Arrays.sort(order, c);
+
+		int[] ranks = new int[m]; // by the position in distinct
+		int r = 0;
+		for (int i = 0; i < m; ++i) {
+			if (i > 0 && c.compare(order[i - 1], order[i]) != 0)
+				r++;
+			ranks[Arrays.binarySearch(distinct, 0, m, order[i])] = r;
+		}
+
+		int[] keys = new int[ids.length];
+		for (int i = 0; i < ids.length; ++i)
+			keys[i] = ranks[Arrays.binarySearch(distinct, 0, m, ids[i])];
+		return keys;
+	}
+
+	/**
+	 * maps all ids in a single pass using the shared {@link MappingTable}s
+	 *
+	 * @param ids
+	 * @param source
+	 * @param target
+	 * @return the first mapped id or {@link TypedCollections#INVALID_ID} for each id
+	 */
+	public static int[] map(int[] ids, IDType source, IDType target) {
+		if (source.equals(target))
+			return ids;
+		int[] r = new int[ids.length];
+		MappingTable m = MappingCaches.get(source, target);
+		if (m == null) {
+			Arrays.fill(r, INVALID_ID);
+			return r;
+		}
+		for (int i = 0; i < ids.length; ++i)
+			r[i] = m.mapSingle(ids[i]);
+		return r;
+	}
+
+	static int[] toIntArray(Collection<Integer> ids) {
+		if (ids instanceof TypedList && ((TypedList) ids).getWrappee() instanceof IntList)
+			return ((IntList) ((TypedList) ids).getWrappee()).toIntArray();
+		int[] r = new int[ids.size()];
+		int i = 0;
+		for (Integer id : ids)
+			r[i++] = id.intValue();
+		return r;
+	}
+
+	/**
+	 * @param tuples
+	 * @param column
+	 * @return the given column of the tuples
+	 */
+	static int[] column(int[][] tuples, int column) {
+		int[] r = new int[tuples.length];
+		for (int i = 0; i < tuples.length; ++i)
+			r[i] = tuples[i][column];
+		return r;
+	}
+}
@@ -6,17 +6,16 @@
 package org.caleydo.view.domino.api.model.typed;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
 import org.caleydo.view.domino.api.model.typed.util.ConcatedList;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 
 /**
  * @author Samuel Gratzl
@@ -24,6 +23,10 @@ import com.google.common.collect.Sets;
  */
 public class TypedGroupList extends TypedList implements ITypedGroupCollection {
 	private final List<TypedListGroup> groups;
+	/**
+	 * item to group index lookup, lazy created
+	 */
+	private volatile int[] groupIndex;
 
 	public TypedGroupList(List<TypedListGroup> groups) {
 		super(new ConcatedList<>(groups), groups.get(0).getIdType());
@@ -43,12 +46,12 @@ public class TypedGroupList extends TypedList implements ITypedGroupCollection {
 	@Override
 	public TypedGroupSet asSet() {
 		//more difficult to convert a group to a set, since duplicates in different groups may occur
-		Set<Integer> acc = new BitSetSet();
+		Set<Integer> acc = new RoaringSet();
 		List<TypedSetGroup> groups = new ArrayList<>();
 		for(TypedListGroup g : getGroups()) {
 			TypedSetGroup s = g.asSet();
 			if (!acc.isEmpty()) {
-				s = new TypedSetGroup(ImmutableSet.copyOf(Sets.difference(s, acc)), s.getIdType(),s.getLabel(),s.getColor());
+				s = new TypedSetGroup(RoaringSet.andNot(s, acc), s.getIdType(),s.getLabel(),s.getColor());
 			}
 			if (s.isEmpty())
 				continue;
@@ -92,13 +95,35 @@ public class TypedGroupList extends TypedList implements ITypedGroupCollection {
 	}
 
 	public TypedListGroup groupAt(int index) {
-		int acc = 0;
-		for (TypedListGroup group : groups) {
-			acc += group.size();
-			if (acc > index)
-				return group;
+		int g = groupIndexAt(index);
+		return g < 0 ? null : groups.get(g);
+	}
+
+	/**
+	 * @param index
+	 * @return the index of the group containing the given item or -1 if out of bounds
+	 */
+	public int groupIndexAt(int index) {
+		if (index < 0 || index >= size())
+			return -1;
+		return groupIndex()[index];
+	}
+
+	/**
+	 * @return lazily computed group index for each item
+	 */
+	private int[] groupIndex() {
+		int[] r = groupIndex;
+		if (r != null)
+			return r;
+		r = new int[size()];
+		int i = 0;
+		for (int g = 0; g < groups.size(); ++g) {
+			final int end = i + groups.get(g).size();
+			Arrays.fill(r, i, end, g);
+			i = end;
 		}
-		return null;
+		return groupIndex = r;
 	}
 
 	@Override
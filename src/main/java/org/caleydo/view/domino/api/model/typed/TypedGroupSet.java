@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
@@ -23,6 +23,7 @@ import com.google.common.collect.Lists;
  */
 public class TypedGroupSet extends TypedSet implements ITypedGroupCollection {
 	private final List<TypedSetGroup> groups;
+	private volatile GroupIndex groupIndex;
 
 	public TypedGroupSet(List<TypedSetGroup> groups) {
 		super(union(groups), groups.get(0).getIdType());
@@ -57,14 +58,33 @@ public class TypedGroupSet extends TypedSet implements ITypedGroupCollection {
 		return groups;
 	}
 
+	/**
+	 * @param id
+	 * @return the index of the first group containing the given id or -1 if none
+	 */
+	public int indexOfGroup(int id) {
+		GroupIndex index = groupIndex;
+		if (index == null)
+			groupIndex = index = GroupIndex.of(groups);
+		return index.indexOf(id);
+	}
+
 	public static TypedGroupSet createUngrouped(TypedSet set) {
 		return new TypedGroupSet(TypedGroups.createUngroupedGroup(set));
 	}
 
 	@Override
-	public int hashCode() {
+	TypedGroupSet detachedCopy() {
+		List<TypedSetGroup> copy = new ArrayList<>(groups.size());
+		for (TypedSetGroup g : groups)
+			copy.add(g.detachedCopy());
+		return new TypedGroupSet(copy);
+	}
+
+	@Override
+	protected int hashCodeImpl() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.hashCodeImpl();
 		result = prime * result + ((groups == null) ? 0 : groups.hashCode());
 		return result;
 	}
@@ -94,16 +114,14 @@ public class TypedGroupSet extends TypedSet implements ITypedGroupCollection {
 		}
 		List<Set<Integer>> gids = new ArrayList<>(ngroups);
 		for (int i = 0; i < ngroups; ++i)
-			gids.add(new BitSetSet());
-		BitSetSet others = new BitSetSet();
-		outer: for (Integer id : sub) {
-			for (int i = 0; i < ngroups; ++i) {
-				if (groups.get(i).contains(id)) {
-					gids.get(i).add(id);
-					continue outer;
-				}
-			}
-			others.add(id);
+			gids.add(new RoaringSet());
+		RoaringSet others = new RoaringSet();
+		for (Integer id : sub) {
+			int i = indexOfGroup(id.intValue());
+			if (i >= 0)
+				gids.get(i).add(id);
+			else
+				others.add(id);
 		}
 		List<TypedSetGroup> ggroups = new ArrayList<>(ngroups + 1);
 		for (int i = 0; i < ngroups; ++i) {
@@ -12,11 +12,9 @@ import java.util.Set;
 import org.caleydo.core.id.IDType;
 import org.caleydo.core.id.IIDTypeMapper;
 import org.caleydo.core.util.color.Color;
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 import org.caleydo.view.domino.api.model.typed.util.RepeatingList;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 
 /**
  * @author Samuel Gratzl
@@ -70,7 +68,7 @@ public final class TypedGroups {
 
 		List<TypedSetGroup> groups = new ArrayList<>();
 		for (ITypedGroup g : a.getGroups()) {
-			Set<Integer> ids = ImmutableSet.copyOf(Sets.intersection(g.asSet(), others));
+			Set<Integer> ids = RoaringSet.and(g.asSet(), others);
 			if (ids.isEmpty())
 				continue;
 			groups.add(new TypedSetGroup(ids, a.getIdType(), g.getLabel(), g.getColor()));
@@ -100,13 +98,13 @@ public final class TypedGroups {
 			return a.asSet();
 		if (a.getIdType() == b.getIdType()) {
 			TypedGroupSet base = a.asSet();
-			Set<Integer> acc = new BitSetSet();
+			Set<Integer> acc = new RoaringSet();
 			acc.addAll(base);
 			List<TypedSetGroup> groups = new ArrayList<>(base.getGroups());
 
 			for (ITypedGroup g : b.getGroups()) {
 				Set<Integer> ids = g.asSet();
-				ids = ImmutableSet.copyOf(Sets.difference(ids, acc));
+				ids = RoaringSet.andNot(ids, acc);
 				if (ids.isEmpty())
 					continue;
 				acc.addAll(ids);
@@ -117,13 +115,13 @@ public final class TypedGroups {
 			// map both to primary to ensure both can be represented
 			final IDType target = a.getIdType().getIDCategory().getPrimaryMappingType();
 
-			Set<Integer> acc = new BitSetSet();
+			Set<Integer> acc = new RoaringSet();
 			List<TypedSetGroup> groups = new ArrayList<>();
 
 			IIDTypeMapper<Integer, Integer> mapper = MappingCaches.findMapper(a.getIdType(), target);
 			for (ITypedGroup g : a.getGroups()) {
 				Set<Integer> ids = mapper.apply(g);
-				ids = acc.isEmpty() ? ids : ImmutableSet.copyOf(Sets.difference(ids, acc));
+				ids = acc.isEmpty() ? ids : RoaringSet.andNot(ids, acc);
 				if (ids.isEmpty())
 					continue;
 				acc.addAll(ids);
@@ -132,7 +130,7 @@ public final class TypedGroups {
 			mapper = MappingCaches.findMapper(b.getIdType(), target);
 			for (ITypedGroup g : b.getGroups()) {
 				Set<Integer> ids = mapper.apply(g);
-				ids = acc.isEmpty() ? ids : ImmutableSet.copyOf(Sets.difference(ids, acc));
+				ids = acc.isEmpty() ? ids : RoaringSet.andNot(ids, acc);
 				if (ids.isEmpty())
 					continue;
 				acc.addAll(ids);
@@ -157,7 +155,7 @@ public final class TypedGroups {
 		List<TypedSetGroup> groups = new ArrayList<>(base.getGroups());
 
 		for (TypedSetGroup g : base.getGroups()) {
-			Set<Integer> ids = ImmutableSet.copyOf(Sets.difference(g, others));
+			Set<Integer> ids = RoaringSet.andNot(g, others);
 			if (ids.isEmpty())
 				continue;
 			groups.add(new TypedSetGroup(ids, a.getIdType(), g.getLabel(), g.getColor()));
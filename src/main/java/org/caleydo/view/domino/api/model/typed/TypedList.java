@@ -13,20 +13,35 @@ import java.util.Objects;
 
 import org.caleydo.core.data.virtualarray.VirtualArray;
 import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.util.ConcatedList;
+import org.caleydo.view.domino.api.model.typed.util.IntIndex;
+import org.caleydo.view.domino.api.model.typed.util.IntList;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 
 /**
  * a reaonly list of integers with their id type
  *
+ * use {@link #of(int[], IDType)} for a primitive backed list, whose lookups don't need boxing
+ *
  * @author Samuel Gratzl
  *
  */
 public class TypedList extends AbstractList<Integer> implements ITypedCollection {
+	/**
+	 * up to this size a linear scan is used instead of a reverse index
+	 */
+	private static final int LINEAR_SCAN_THRESHOLD = 16;
+
 	private final List<Integer> wrappee;
 	private final IDType idType;
+	/**
+	 * reverse index for immutable wrappees, lazy created
+	 */
+	private volatile IntIndex index;
 
 	public TypedList(List<Integer> wrappee, IDType idType) {
 		this.wrappee = wrappee instanceof TypedList ? ((TypedList) wrappee).wrappee : Preconditions
@@ -37,12 +52,23 @@ public class TypedList extends AbstractList<Integer> implements ITypedCollection
 	public TypedList(TypedList clone) {
 		this.wrappee = clone.wrappee;
 		this.idType = clone.idType;
+		this.index = clone.index;
 	}
 
 	public static TypedList of(VirtualArray per) {
 		return new TypedList(per.getIDs(), per.getIdType());
 	}
 
+	/**
+	 * @param ids
+	 *            the ids, which are not copied and must not be modified afterwards
+	 * @param idType
+	 * @return a list backed by the given primitive ids
+	 */
+	public static TypedList of(int[] ids, IDType idType) {
+		return new TypedList(new IntList(ids), idType);
+	}
+
 	@Override
 	public TypedList asList() {
 		return this;
@@ -50,11 +76,13 @@ public class TypedList extends AbstractList<Integer> implements ITypedCollection
 
 	@Override
 	public TypedSet asSet() {
-		return new TypedSet(ImmutableSet.copyOf(wrappee), idType);
+		return new TypedSet(RoaringSet.of(wrappee), idType);
 	}
 
 	@Override
 	public TypedList subList(int fromIndex, int toIndex) {
+		if (wrappee instanceof IntList) // zero copy
+			return new TypedList(wrappee.subList(fromIndex, toIndex), idType);
 		return new TypedList(super.subList(fromIndex, toIndex), idType);
 	}
 
@@ -90,7 +118,35 @@ public class TypedList extends AbstractList<Integer> implements ITypedCollection
 
 	@Override
 	public final boolean contains(Object o) {
-		return wrappee.contains(o);
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public final int indexOf(Object o) {
+		if (wrappee instanceof IntList)
+			return wrappee.indexOf(o);
+		IntIndex i = index();
+		if (i == null)
+			return wrappee.indexOf(o);
+		return o instanceof Integer ? i.indexOf(((Integer) o).intValue()) : -1;
+	}
+
+	@Override
+	public final int lastIndexOf(Object o) {
+		return wrappee.lastIndexOf(o);
+	}
+
+	/**
+	 * @return the reverse index if the wrappee is immutable and large enough
+	 */
+	private IntIndex index() {
+		IntIndex i = index;
+		if (i != null)
+			return i;
+		if (wrappee.size() <= LINEAR_SCAN_THRESHOLD
+				|| !(wrappee instanceof ImmutableList || wrappee instanceof ConcatedList))
+			return null;
+		return index = IntIndex.of(wrappee);
 	}
 
 	@Override
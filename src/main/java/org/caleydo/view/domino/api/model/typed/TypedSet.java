@@ -6,26 +6,26 @@
 package org.caleydo.view.domino.api.model.typed;
 
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
 import org.caleydo.core.data.virtualarray.VirtualArray;
 import org.caleydo.core.id.IDType;
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSets;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Sets;
 
 /**
- * a read only {@link Set} of integers with its {@link IDType}
+ * a read only {@link Set} of integers with its {@link IDType}, set operations produce compressed {@link RoaringSet}s
  *
  * @author Samuel Gratzl
  *
@@ -34,6 +34,15 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 	private final Set<Integer> wrappee;
 	private final IDType idType;
 
+	/**
+	 * whether this instance is the canonical instance of its content, see {@link TypedSets#intern(TypedSet)}
+	 */
+	private volatile boolean interned;
+	/**
+	 * cached hash code of an interned set, 0 if not yet computed
+	 */
+	private int hash;
+
 	public TypedSet(Set<Integer> wrappee, IDType idType) {
 		this.wrappee = wrappee instanceof TypedSet ? ((TypedSet) wrappee).wrappee : Preconditions.checkNotNull(wrappee);
 		this.idType = Preconditions.checkNotNull(idType);
@@ -45,7 +54,7 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 	}
 
 	public static TypedSet of(VirtualArray per) {
-		return new TypedSet(BitSetSet.of(per), per.getIdType());
+		return new TypedSet(RoaringSet.of(per), per.getIdType());
 	}
 
 	@Override
@@ -115,26 +124,12 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 		if (!Objects.equals(this.idType, that.idType)) // not matching id types returning empty set
 			return new TypedSet(Collections.<Integer> emptySet(), idType);
 
-		if (this.wrappee instanceof BitSetSet)
-			return intersection((BitSetSet) wrappee, that);
-		if (that.wrappee instanceof BitSetSet)
-			return intersection((BitSetSet) that.wrappee, this);
-
-		Set<Integer> r = ImmutableSet.copyOf(intersectImpl(that));
+		Set<Integer> r = RoaringSet.and(this.wrappee, that.wrappee);
 		if (r.size() == this.size()) // all shared
 			return this;
 		return new TypedSet(r, idType);
 	}
 
-	private Set<Integer> intersectImpl(TypedSet that) {
-		Set<Integer> r;
-		if (this.size() < that.size()) { // smaller at the beginning
-			r = Sets.intersection(that.wrappee, this.wrappee);
-		} else
-			r = Sets.intersection(this.wrappee, that.wrappee);
-		return r;
-	}
-
 	/**
 	 * return the number of shared items
 	 *
@@ -143,18 +138,23 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 	 * @return
 	 */
 	public int and(TypedSet that) {
+		return andCardinality(that);
+	}
+
+	/**
+	 * number of shared items, without materializing the intersection
+	 *
+	 * @param that
+	 * @return
+	 */
+	public int andCardinality(TypedSet that) {
 		if (this.isEmpty()) // return empty
 			return 0;
 		if (that.isEmpty())
 			return 0;
 		if (!Objects.equals(this.idType, that.idType)) // not matching id types returning empty set
 			return 0;
-		if (this.wrappee instanceof BitSetSet) {
-			return and((BitSetSet) this.wrappee, that);
-		}
-		if (that.wrappee instanceof BitSetSet)
-			return and((BitSetSet) that.wrappee, this);
-		return intersectImpl(that).size();
+		return RoaringSet.andCardinality(this.wrappee, that.wrappee);
 	}
 
 	public TypedSet union(TypedSet that) {
@@ -164,12 +164,8 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 			return this;
 		if (!Objects.equals(this.idType, that.idType)) // not matching id types returning empty set
 			return TypedCollections.empty(idType);
-		if (this.wrappee instanceof BitSetSet)
-			return union((BitSetSet) wrappee, that);
-		if (that.wrappee instanceof BitSetSet)
-			return union((BitSetSet) that.wrappee, this);
 
-		Set<Integer> r = ImmutableSet.copyOf(unionImpl(that));
+		Set<Integer> r = RoaringSet.or(this.wrappee, that.wrappee);
 		if (r.size() == this.size()) // all shared
 			return this;
 		else if (r.size() == that.size()) // all shared in b
@@ -178,27 +174,23 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 	}
 
 	public int or(TypedSet that) {
+		return orCardinality(that);
+	}
+
+	/**
+	 * number of items in the union, without materializing the union
+	 *
+	 * @param that
+	 * @return
+	 */
+	public int orCardinality(TypedSet that) {
 		if (this.isEmpty()) // return empty
 			return that.size();
-		if (this.isEmpty())
-			return that.size();
+		if (that.isEmpty())
+			return this.size();
 		if (!Objects.equals(this.idType, that.idType)) // not matching id types returning empty set
 			return 0;
-		if (this.wrappee instanceof BitSetSet) {
-			return or((BitSetSet) this.wrappee, that);
-		}
-		if (that.wrappee instanceof BitSetSet)
-			return or((BitSetSet) that.wrappee, this);
-		return unionImpl(that).size();
-	}
-
-	private Set<Integer> unionImpl(TypedSet that) {
-		Set<Integer> r;
-		if (this.size() < that.size()) { // smaller at the beginning
-			r = Sets.union(that.wrappee, this.wrappee);
-		} else
-			r = Sets.union(this.wrappee, that.wrappee);
-		return r;
+		return RoaringSet.orCardinality(this.wrappee, that.wrappee);
 	}
 
 	public TypedSet difference(TypedSet that) {
@@ -206,69 +198,46 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 			return this;
 		if (!Objects.equals(this.idType, that.idType)) // not matching id types
 			return this;
-		Set<Integer> r = ImmutableSet.copyOf(Sets.difference(this, that));
+		Set<Integer> r = RoaringSet.andNot(this.wrappee, that.wrappee);
 		if (r.size() == this.size()) // all shared
 			return this;
 		return new TypedSet(r, idType);
 	}
 
 	public int without(TypedSet that) {
+		return andNotCardinality(that);
+	}
+
+	/**
+	 * number of items not part of the given set, without materializing the difference
+	 *
+	 * @param that
+	 * @return
+	 */
+	public int andNotCardinality(TypedSet that) {
 		if (this.isEmpty()) // return empty
 			return 0;
 		if (that.isEmpty())
-			return that.size();
+			return this.size();
 		if (!Objects.equals(this.idType, that.idType)) // not matching id types
 			return this.size();
-		if (this.wrappee instanceof BitSetSet) {
-			return without((BitSetSet) this.wrappee, that.wrappee);
-		}
-		return Sets.difference(this.wrappee, that.wrappee).size();
-	}
-
-	public static TypedSet intersection(BitSetSet a, TypedSet b) {
-		if (b.wrappee instanceof BitSetSet) {
-			return new TypedSet(BitSetSet.and(a, ((BitSetSet) b.wrappee)), b.idType);
-		}
-		return new TypedSet(ImmutableSet.copyOf(Sets.intersection(b, a)), b.idType); // as the predicate is: in the
-																						// second argument
-	}
-
-	private static TypedSet union(BitSetSet a, TypedSet b) {
-		if (b.wrappee instanceof BitSetSet) {
-			return new TypedSet(BitSetSet.or(a, (BitSetSet) b.wrappee), b.idType);
-		}
-		return new TypedSet(ImmutableSet.copyOf(Sets.union(b, a)), b.idType); // as the predicate is: in the second
-																				// argument
-	}
-
-	private static int and(BitSetSet a, Set<Integer> b) {
-		if (b instanceof BitSetSet) {
-			BitSetSet s = BitSetSet.and(a, (BitSetSet) b);
-			return s.size();
-		}
-		return Sets.intersection(b, a).size(); // as the predicate is: in the second argument
-	}
-
-	private static int or(BitSetSet a, Set<Integer> b) {
-		if (b instanceof BitSetSet) {
-			BitSetSet s = BitSetSet.or(a, (BitSetSet) b);
-			return s.size();
-		}
-		return Sets.union(b, a).size(); // as the predicate is: in the second argument
+		return RoaringSet.andNotCardinality(this.wrappee, that.wrappee);
 	}
 
-	private static int without(BitSetSet a, Set<Integer> b) {
-		if (b instanceof BitSetSet) {
-			BitSetSet s = BitSetSet.andNot(a, (BitSetSet) b);
-			return s.size();
-		}
-		return Sets.difference(a, b).size(); // as the predicate is: in the second argument
+	@Override
+	public final int hashCode() {
+		if (!interned)
+			return hashCodeImpl();
+		int h = hash;
+		if (h == 0)
+			hash = h = hashCodeImpl();
+		return h;
 	}
 
-	@Override
-	public int hashCode() {
+	protected int hashCodeImpl() {
 		final int prime = 31;
-		int result = super.hashCode();
+		// the content hash of the wrappee is the one of this set, don't iterate twice
+		int result = 1;
 		result = prime * result + ((idType == null) ? 0 : idType.hashCode());
 		result = prime * result + ((wrappee == null) ? 0 : wrappee.hashCode());
 		return result;
@@ -278,6 +247,8 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
+		if (interned && obj instanceof TypedSet && ((TypedSet) obj).interned) // canonical instances are unique
+			return false;
 		if (!super.equals(obj))
 			return false;
 		if (getClass() != obj.getClass())
@@ -298,27 +269,63 @@ public class TypedSet extends AbstractSet<Integer> implements ITypedCollection {
 	}
 
 	/**
+	 * k-way union of sets of the same {@link IDType}
+	 *
 	 * @param same
 	 * @return
 	 */
 	public static TypedSet union(Iterable<? extends TypedSet> same) {
-		Builder<Integer> b = ImmutableSet.builder();
-		for (TypedSet s : same)
-			b.addAll(s.wrappee);
-		return new TypedSet(b.build(), same.iterator().next().getIdType());
-
+		return new TypedSet(RoaringSets.union(wrappees(same)), same.iterator().next().getIdType());
 	}
 
 	/**
+	 * k-way intersection of sets of the same {@link IDType}
+	 *
 	 * @param same
 	 * @return
 	 */
 	public static TypedSet intersection(Iterable<? extends TypedSet> same) {
-		Set<Integer> r = new HashSet<>(same.iterator().next());
-		for (TypedSet s : same)
-			r.retainAll(s);
-		return new TypedSet(r, same.iterator().next().getIdType());
+		return new TypedSet(RoaringSets.intersection(wrappees(same)), same.iterator().next().getIdType());
+	}
+
+	/**
+	 * @return the interned, see {@link #interned}
+	 */
+	public final boolean isInterned() {
+		return interned;
+	}
 
+	/**
+	 * marks this set as the canonical instance of its content
+	 */
+	final void markInterned() {
+		this.interned = true;
+	}
+
+	/**
+	 * @return a copy of this set not sharing its content with the caller, see {@link TypedSets#intern(TypedSet)}
+	 */
+	TypedSet detachedCopy() {
+		return new TypedSet(detach(wrappee), idType);
 	}
 
+	private static Set<Integer> detach(Set<Integer> s) {
+		if (s instanceof ImmutableSet<?>)
+			return s;
+		return s instanceof RoaringSet ? ((RoaringSet) s).copy() : RoaringSet.of(s);
+	}
+
+	/**
+	 * @return the wrappee, see {@link #wrappee}
+	 */
+	final Set<Integer> getWrappee() {
+		return wrappee;
+	}
+
+	private static List<Set<Integer>> wrappees(Iterable<? extends TypedSet> sets) {
+		List<Set<Integer>> r = new ArrayList<>();
+		for (TypedSet s : sets)
+			r.add(s.wrappee);
+		return r;
+	}
 }
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+/**
+ * a lazy set operation expression over {@link ITypedCollection}s, e.g. <code>of(a).and(b).minus(c)</code>, which is
+ * just evaluated on demand: as an iterator, a count or a materialized {@link TypedSet}
+ *
+ * operands of another {@link IDType} are mapped to the id type of the left hand side. Intersections are driven by
+ * their smallest operand, the others are just probed, such that no intermediate sets are built. The exception are
+ * mapped operands: probing one materializes its image in the target id type once
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public abstract class TypedSetExpr implements Iterable<Integer>, IHasIDType {
+	private static final Comparator<TypedSetExpr> BY_ESTIMATE = new Comparator<TypedSetExpr>() {
+		@Override
+		public int compare(TypedSetExpr o1, TypedSetExpr o2) {
+			return Integer.compare(o1.estimateSize(), o2.estimateSize());
+		}
+	};
+
+	private final IDType idType;
+
+	TypedSetExpr(IDType idType) {
+		this.idType = Preconditions.checkNotNull(idType);
+	}
+
+	public static TypedSetExpr of(ITypedCollection c) {
+		return new Leaf(c.asSet());
+	}
+
+	@Override
+	public final IDType getIdType() {
+		return idType;
+	}
+
+	/**
+	 * @param id
+	 * @return whether the given id is part of the result, without evaluating the whole expression
+	 */
+	public abstract boolean contains(int id);
+
+	/**
+	 * @return an upper bound of the result size, used for planning
+	 */
+	public abstract int estimateSize();
+
+	/**
+	 * @return a streaming iterator over the distinct ids of the result
+	 */
+	@Override
+	public abstract Iterator<Integer> iterator();
+
+	/**
+	 * @return the number of ids of the result
+	 */
+	public int size() {
+		return Iterators.size(iterator());
+	}
+
+	public boolean isEmpty() {
+		return !iterator().hasNext();
+	}
+
+	/**
+	 * @param k
+	 * @return the first k ids of the result
+	 */
+	public List<Integer> first(int k) {
+		return ImmutableList.copyOf(Iterators.limit(iterator(), k));
+	}
+
+	/**
+	 * @return the materialized result
+	 */
+	public TypedSet toSet() {
+		RoaringSet r = new RoaringSet();
+		Iterators.addAll(r, iterator());
+		return new TypedSet(r, idType);
+	}
+
+	public final TypedSetExpr and(ITypedCollection that) {
+		return and(of(that));
+	}
+
+	public TypedSetExpr and(TypedSetExpr that) {
+		return new And(Arrays.asList(this, that.map(idType)));
+	}
+
+	public final TypedSetExpr or(ITypedCollection that) {
+		return or(of(that));
+	}
+
+	public TypedSetExpr or(TypedSetExpr that) {
+		return new Or(Arrays.asList(this, that.map(idType)));
+	}
+
+	public final TypedSetExpr minus(ITypedCollection that) {
+		return minus(of(that));
+	}
+
+	public TypedSetExpr minus(TypedSetExpr that) {
+		return new Minus(this, that.map(idType));
+	}
+
+	/**
+	 * @param target
+	 * @return all ids the result can be mapped to in the target id type
+	 */
+	public TypedSetExpr map(IDType target) {
+		if (idType.equals(target))
+			return this;
+		return new Map(this, target);
+	}
+
+	private static boolean allLeaves(List<TypedSetExpr> exprs) {
+		for (TypedSetExpr e : exprs)
+			if (!(e instanceof Leaf))
+				return false;
+		return true;
+	}
+
+	private static List<TypedSet> sets(List<TypedSetExpr> leaves) {
+		List<TypedSet> r = new ArrayList<>(leaves.size());
+		for (TypedSetExpr e : leaves)
+			r.add(((Leaf) e).set);
+		return r;
+	}
+
+	private static final class Leaf extends TypedSetExpr {
+		private final TypedSet set;
+
+		Leaf(TypedSet set) {
+			super(set.getIdType());
+			this.set = set;
+		}
+
+		@Override
+		public boolean contains(int id) {
+			return set.contains(id);
+		}
+
+		@Override
+		public int estimateSize() {
+			return set.size();
+		}
+
+		@Override
+		public int size() {
+			return set.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return set.isEmpty();
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return set.iterator();
+		}
+
+		@Override
+		public TypedSet toSet() {
+			return set;
+		}
+	}
+
+	private static final class And extends TypedSetExpr {
+		private final List<TypedSetExpr> operands;
+
+		And(List<TypedSetExpr> operands) {
+			super(operands.get(0).getIdType());
+			List<TypedSetExpr> flat = new ArrayList<>(operands.size());
+			for (TypedSetExpr e : operands) {
+				if (e instanceof And)
+					flat.addAll(((And) e).operands);
+				else
+					flat.add(e);
+			}
+			// plan: the smallest operand drives the evaluation
+			Collections.sort(flat, BY_ESTIMATE);
+			this.operands = flat;
+		}
+
+		@Override
+		public boolean contains(int id) {
+			for (TypedSetExpr e : operands)
+				if (!e.contains(id))
+					return false;
+			return true;
+		}
+
+		@Override
+		public int estimateSize() {
+			return operands.get(0).estimateSize();
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			final List<TypedSetExpr> probes = operands.subList(1, operands.size());
+			return Iterators.filter(operands.get(0).iterator(), new Predicate<Integer>() {
+				@Override
+				public boolean apply(Integer input) {
+					final int id = input.intValue();
+					for (TypedSetExpr e : probes)
+						if (!e.contains(id))
+							return false;
+					return true;
+				}
+			});
+		}
+
+		@Override
+		public int size() {
+			if (operands.size() == 2 && allLeaves(operands))
+				return ((Leaf) operands.get(0)).set.andCardinality(((Leaf) operands.get(1)).set);
+			return super.size();
+		}
+
+		@Override
+		public TypedSet toSet() {
+			if (allLeaves(operands))
+				return TypedSet.intersection(sets(operands));
+			return super.toSet();
+		}
+	}
+
+	private static final class Or extends TypedSetExpr {
+		private final List<TypedSetExpr> operands;
+
+		Or(List<TypedSetExpr> operands) {
+			super(operands.get(0).getIdType());
+			List<TypedSetExpr> flat = new ArrayList<>(operands.size());
+			for (TypedSetExpr e : operands) {
+				if (e instanceof Or)
+					flat.addAll(((Or) e).operands);
+				else
+					flat.add(e);
+			}
+			// plan: the largest operand first, as the ids of each operand are probed against all the previous ones
+			Collections.sort(flat, Collections.reverseOrder(BY_ESTIMATE));
+			this.operands = flat;
+		}
+
+		@Override
+		public boolean contains(int id) {
+			for (TypedSetExpr e : operands)
+				if (e.contains(id))
+					return true;
+			return false;
+		}
+
+		@Override
+		public int estimateSize() {
+			long r = 0;
+			for (TypedSetExpr e : operands)
+				r += e.estimateSize();
+			return (int) Math.min(r, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			List<Iterator<Integer>> its = new ArrayList<>(operands.size());
+			for (int i = 0; i < operands.size(); ++i) {
+				final List<TypedSetExpr> previous = operands.subList(0, i);
+				its.add(Iterators.filter(operands.get(i).iterator(), new Predicate<Integer>() {
+					@Override
+					public boolean apply(Integer input) {
+						final int id = input.intValue();
+						for (TypedSetExpr e : previous)
+							if (e.contains(id))
+								return false;
+						return true;
+					}
+				}));
+			}
+			return Iterators.concat(its.iterator());
+		}
+
+		@Override
+		public boolean isEmpty() {
+			for (TypedSetExpr e : operands)
+				if (!e.isEmpty())
+					return false;
+			return true;
+		}
+
+		@Override
+		public int size() {
+			if (operands.size() == 2 && allLeaves(operands))
+				return ((Leaf) operands.get(0)).set.orCardinality(((Leaf) operands.get(1)).set);
+			return super.size();
+		}
+
+		@Override
+		public TypedSet toSet() {
+			if (allLeaves(operands))
+				return TypedSet.union(sets(operands));
+			return super.toSet();
+		}
+	}
+
+	private static final class Minus extends TypedSetExpr {
+		private final TypedSetExpr a;
+		private final TypedSetExpr b;
+
+		Minus(TypedSetExpr a, TypedSetExpr b) {
+			super(a.getIdType());
+			this.a = a;
+			this.b = b;
+		}
+
+		@Override
+		public boolean contains(int id) {
+			return a.contains(id) && !b.contains(id);
+		}
+
+		@Override
+		public int estimateSize() {
+			return a.estimateSize();
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return Iterators.filter(a.iterator(), new Predicate<Integer>() {
+				@Override
+				public boolean apply(Integer input) {
+					return !b.contains(input.intValue());
+				}
+			});
+		}
+
+		@Override
+		public int size() {
+			if (a instanceof Leaf && b instanceof Leaf)
+				return ((Leaf) a).set.andNotCardinality(((Leaf) b).set);
+			return super.size();
+		}
+
+		@Override
+		public TypedSet toSet() {
+			if (a instanceof Leaf && b instanceof Leaf)
+				return ((Leaf) a).set.difference(((Leaf) b).set);
+			return super.toSet();
+		}
+	}
+
+	/**
+	 * mapping of an expression to another {@link IDType}, membership tests probe the image of the forward mapping,
+	 * which is materialized on first use, as the reverse mapping may be missing or not symmetric
+	 */
+	private static final class Map extends TypedSetExpr {
+		private final TypedSetExpr source;
+		private final MappingTable forward;
+		private volatile TypedSet image;
+
+		Map(TypedSetExpr source, IDType target) {
+			super(target);
+			this.source = source;
+			this.forward = MappingCaches.get(source.getIdType(), target);
+		}
+
+		@Override
+		public boolean contains(int id) {
+			if (forward == null)
+				return false;
+			TypedSet i = image;
+			if (i == null)
+				image = i = toSet();
+			return i.contains(id);
+		}
+
+		@Override
+		public int estimateSize() {
+			return forward == null ? 0 : source.estimateSize();
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			if (forward == null)
+				return Collections.emptyIterator();
+			final Iterator<Integer> it = source.iterator();
+			return new AbstractIterator<Integer>() {
+				private final RoaringSet seen = new RoaringSet();
+				private Iterator<Integer> act = Collections.emptyIterator();
+
+				@Override
+				protected Integer computeNext() {
+					while (true) {
+						while (act.hasNext()) {
+							Integer next = act.next();
+							if (seen.add(next))
+								return next;
+						}
+						if (!it.hasNext())
+							return endOfData();
+						act = forward.apply(it.next().intValue()).iterator();
+					}
+				}
+			};
+		}
+
+		@Override
+		public TypedSet toSet() {
+			if (forward == null)
+				return TypedCollections.empty(getIdType());
+			if (image != null)
+				return image;
+			return new TypedSet(forward.apply(source instanceof Leaf ? ((Leaf) source).set : source),
+					getIdType());
+		}
+	}
+}
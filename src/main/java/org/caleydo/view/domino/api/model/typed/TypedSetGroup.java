@@ -55,9 +55,14 @@ public class TypedSetGroup extends TypedSet implements ITypedGroup {
 	}
 
 	@Override
-	public int hashCode() {
+	TypedSetGroup detachedCopy() {
+		return new TypedSetGroup(super.detachedCopy(), label, color);
+	}
+
+	@Override
+	protected int hashCodeImpl() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.hashCodeImpl();
 		result = prime * result + ((color == null) ? 0 : color.hashCode());
 		result = prime * result + ((label == null) ? 0 : label.hashCode());
 		return result;
@@ -5,45 +5,48 @@
  *******************************************************************************/
 package org.caleydo.view.domino.api.model.typed;
 
-import static org.caleydo.view.domino.api.model.typed.MappingCaches.findMapper;
 import static org.caleydo.view.domino.api.model.typed.TypedCollections.INVALID_ID;
-import static org.caleydo.view.domino.api.model.typed.TypedCollections.mapSingle;
-import static org.caleydo.view.domino.api.model.typed.TypedCollections.toSingleOrInvalid;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.caleydo.core.data.collection.EDataType;
 import org.caleydo.core.id.IDCategory;
 import org.caleydo.core.id.IDMappingManager;
 import org.caleydo.core.id.IDMappingManagerRegistry;
 import org.caleydo.core.id.IDType;
-import org.caleydo.core.id.IIDTypeMapper;
 import org.caleydo.core.id.MappingType;
-import org.caleydo.core.util.collection.Pair;
+import org.caleydo.view.domino.api.model.typed.util.ColumnarTupleSet;
+import org.caleydo.view.domino.api.model.typed.util.KeySort;
 import org.caleydo.view.domino.api.model.typed.util.RepeatingList;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 
 import com.google.common.base.Function;
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimaps;
-import com.google.common.primitives.Ints;
 
 /**
  * @author Samuel Gratzl
  *
  */
 public class TypedSets {
+	/**
+	 * canonical instances of interned sets, weakly referenced, guarded by itself
+	 */
+	private static final Map<TypedSet, WeakReference<TypedSet>> CANONICAL = new WeakHashMap<>();
+
 
 	/**
 	 * produces a union of the given sets, in contrast to {@link #union(TypedSet...)} multi mapped indices will be added
@@ -75,33 +78,25 @@ public class TypedSets {
 			return MultiTypedSet.single(sets[0]);
 		}
 
-		final LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache = MappingCaches.create();
-
 		if (deep) // expand to all mappable ids
-			sets = expandMapped(sets, cache);
+			sets = expandMapped(sets);
 
 		boolean union = true;
-		return setOperation(sets, union, cache);
+		return setOperation(sets, union);
 	}
 
-	private static MultiTypedSet setOperation(TypedSet[] sets, boolean union,
-			final LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache) {
+	private static MultiTypedSet setOperation(TypedSet[] sets, boolean union) {
 		if (sets.length == 0) {
 			return new MultiTypedSet(new IDType[0], Collections.<int[]> emptySet());
 		}
 		final int l = sets.length;
-		Set<List<Integer>> r = new HashSet<>();
+		ColumnarTupleSet r = new ColumnarTupleSet(l, sets[0].size());
 		IDType[] t = new IDType[l];
 		for(int i = 0; i < sets.length; ++i) {
 			t[i] = sets[i].getIdType();
-			fill(sets, i, cache, r, union);
+			fill(sets, i, r, union);
 		}
-
-		// convert to right structure
-		ImmutableSet.Builder<int[]> r_s = ImmutableSet.builder();
-		for(List<Integer> ri : r)
-			r_s.add(Ints.toArray(ri));
-		return new MultiTypedSet(t, r_s.build());
+		return new MultiTypedSet(t, r);
 	}
 
 	/**
@@ -121,38 +116,31 @@ public class TypedSets {
 		if (l == 1) { // single id type
 			return MultiTypedSet.single(sets[0]);
 		}
-		final LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache = MappingCaches.create();
-
 		// remove from an idtype all ids which the others can't be mapped to
-		sets = removeNotMapped(sets, cache);
+		sets = removeNotMapped(sets);
 
-		return setOperation(sets, false, cache);
+		return setOperation(sets, false);
 	}
 
 	/**
+	 * restricts each set to the ids which all others can be mapped to, evaluated as lazy {@link TypedSetExpr}, such
+	 * that the mapped sets don't need to be materialized
+	 *
 	 * @param sets
-	 * @param cache
 	 * @return
 	 */
-	private static TypedSet[] removeNotMapped(TypedSet[] sets,
-			LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache) {
+	private static TypedSet[] removeNotMapped(TypedSet[] sets) {
 		TypedSet[] r = new TypedSet[sets.length];
 		for (int i = 0; i < sets.length; ++i) {
-			TypedSet act = sets[i];
-			Set<Integer> ids = new HashSet<>(act);
+			TypedSetExpr ids = TypedSetExpr.of(sets[i]);
 			for (int j = 0; j < sets.length; ++j) {
-				if (j == i)
-					continue;
-				TypedSet b = sets[j];
-				IIDTypeMapper<Integer, Integer> b2a = cache.getUnchecked(Pair.make(b.getIdType(), act.getIdType()));
-				Set<Integer> m = b2a == null ? null : b2a.apply(b);
-				if (m == null) // no mapping remove all = no intersection
-					return new TypedSet[0];
-				ids.retainAll(m);
-				if (ids.isEmpty()) // empty nothing to intersect
-					return new TypedSet[0];
+				if (j != i)
+					ids = ids.and(sets[j]);
 			}
-			r[i] = new TypedSet(ids, act.getIdType());
+			TypedSet act = ids.toSet();
+			if (act.isEmpty()) // empty nothing to intersect
+				return new TypedSet[0];
+			r[i] = act;
 		}
 		return r;
 	}
@@ -161,47 +149,58 @@ public class TypedSets {
 	 * expands te given sets, such that all mapped instances between the ids are part of the sets, i.e. for each set map
 	 * all ids to all others ids and add missing entries
 	 *
+	 * keeps a bitmap of the reached ids per id type and maps just the newly reached ids (frontier) along each mapping
+	 * until no new ids are reached
+	 *
 	 * @param sets
-	 * @param cache
+	 *            sets with distinct id types
 	 * @return
 	 */
-	private static TypedSet[] expandMapped(TypedSet[] sets,
-			LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache) {
-		Set<TypedID> todo = new HashSet<>();
-		Set<TypedID> done = new HashSet<>();
-
-		for (TypedSet s : sets)
-			// init
-			todo.addAll(new SingleTypedIDSet(s));
-
-		while (!todo.isEmpty()) {
-			Iterator<TypedID> it = todo.iterator();
-			TypedID r = it.next();
-			it.remove();
-			done.add(r);
-
-			for (TypedSet s : sets) { // map to all other types
-				IDType s_idType = s.getIdType();
-				if (s_idType == r.getIdType())
-					continue;
-				IIDTypeMapper<Integer, Integer> m = cache.getUnchecked(Pair.make(r.getIdType(), s_idType));
-				if (m == null)
-					continue;
-				Set<Integer> apply = m.apply(r.getId());
-				if (apply == null)
+	private static TypedSet[] expandMapped(TypedSet[] sets) {
+		final int l = sets.length;
+		RoaringSet[] done = new RoaringSet[l];
+		RoaringSet[] frontier = new RoaringSet[l];
+		for (int i = 0; i < l; ++i) {
+			done[i] = RoaringSet.wrap(sets[i].getWrappee());
+			frontier[i] = done[i];
+		}
+		MappingTable[][] mappings = new MappingTable[l][l];
+		for (int i = 0; i < l; ++i)
+			for (int j = 0; j < l; ++j)
+				if (i != j)
+					mappings[i][j] = MappingCaches.get(sets[i].getIdType(), sets[j].getIdType());
+
+		boolean any = true;
+		while (any) {
+			RoaringSet[] reached = new RoaringSet[l];
+			for (int j = 0; j < l; ++j)
+				reached[j] = new RoaringSet();
+			for (int i = 0; i < l; ++i) {
+				if (frontier[i].isEmpty())
 					continue;
-				for (Integer s_r : apply) { // produce new todo items it not already done
-					TypedID i = new TypedID(s_r, s_idType);
-					if (done.contains(i))
-						continue;
-					todo.add(i);
+				for (int j = 0; j < l; ++j) {
+					MappingTable m = mappings[i][j];
+					if (m != null) // map the whole frontier at once
+						reached[j].addAll(m.apply(frontier[i]));
 				}
 			}
+			any = false;
+			for (int j = 0; j < l; ++j) {
+				frontier[j] = RoaringSet.andNot(reached[j], done[j]);
+				if (frontier[j].isEmpty())
+					continue;
+				any = true;
+				done[j] = RoaringSet.or(done[j], frontier[j]);
+			}
 		}
 
-		Collection<TypedSet> new_ = toTypedSets(done);
-		return new_.toArray(new TypedSet[0]);
+		List<TypedSet> r = new ArrayList<>(l);
+		for (int i = 0; i < l; ++i)
+			if (!done[i].isEmpty())
+				r.add(new TypedSet(done[i], sets[i].getIdType()));
+		return r.toArray(new TypedSet[0]);
 	}
+
 	/**
 	 * convert a inhomogenous set of {@link TypedID} to a collection of {@link TypedSet}s
 	 *
@@ -212,12 +211,14 @@ public class TypedSets {
 		if (set instanceof SingleTypedIDSet) { // its just a wrapper
 			return Collections.singleton(((SingleTypedIDSet) set).getData());
 		}
+		if (set instanceof PackedTypedIDSet) // already grouped by id type
+			return ((PackedTypedIDSet) set).toTypedSets();
 		// compress to typed sets
 		ListMultimap<IDType, TypedID> index = Multimaps.index(set, TypedID.TO_IDTYPE);
 		Collection<TypedSet> new_ = new ArrayList<>(index.keySet().size());
 		for (IDType idType : index.keySet()) {
 			List<TypedID> same = index.get(idType);
-			new_.add(new TypedSet(ImmutableSet.copyOf(Lists.transform(same, TypedID.TO_ID)), idType));
+			new_.add(new TypedSet(RoaringSet.of(Lists.transform(same, TypedID.TO_ID)), idType));
 		}
 		return new_;
 	}
@@ -247,12 +248,9 @@ public class TypedSets {
 	 *
 	 * @param sets
 	 * @param act_i
-	 * @param cache
 	 * @param r
 	 */
-	private static void fill(TypedSet[] sets, int act_i,
-			LoadingCache<Pair<IDType, IDType>, IIDTypeMapper<Integer, Integer>> cache, Set<List<Integer>> r,
-			boolean union) {
+	private static void fill(TypedSet[] sets, int act_i, ColumnarTupleSet r, boolean union) {
 		TypedSet act = sets[act_i];
 		final int l = sets.length;
 		List<Iterator<Set<Integer>>> mapped = new ArrayList<>(l);
@@ -260,7 +258,7 @@ public class TypedSets {
 				act.size());
 		for(int i = 0; i < l; ++i) {
 			TypedSet s = sets[i];
-			IIDTypeMapper<Integer, Integer> m = cache.getUnchecked(Pair.make(act.getIdType(), s.getIdType()));
+			MappingTable m = MappingCaches.get(act.getIdType(), s.getIdType());
 			Collection<Set<Integer>> m_r = m == null ? null : m.applySeq(act);
 			if (m_r == null) {
 				mapped.add(invalidList.iterator());
@@ -270,11 +268,11 @@ public class TypedSets {
 
 		List<Set<Integer>> acts = new ArrayList<>(mapped.size());
 		List<Integer> multi = new ArrayList<>();
+		int[] singles = new int[l]; // store just the singles, reused as the tuples are copied
 
 		for (int j = 0; j < act.size(); ++j) {
 			next(mapped, acts);
 			multi.clear();
-			int[] singles = new int[l]; // store just the singles
 			for (int i = 0; i < l; ++i) {
 				boolean isMulti = acts.get(i).size() > 1;
 				if (isMulti)
@@ -285,7 +283,7 @@ public class TypedSets {
 				}
 			}
 			if (multi.isEmpty()) {// just single mappings
-				r.add(Ints.asList(singles));
+				r.add(singles);
 			} else {
 				// some multi mappings, we need to create the product of all combinations
 				product(multi, 0, singles, acts, r, union ? null : sets);
@@ -294,9 +292,9 @@ public class TypedSets {
 	}
 
 	private static void product(List<Integer> multi, int start, int[] singles, List<Set<Integer>> acts,
-			Set<List<Integer>> r, TypedSet[] partOf) {
+			ColumnarTupleSet r, TypedSet[] partOf) {
 		if (multi.size() <= start) { // flush
-			r.add(Ints.asList(Arrays.copyOf(singles, singles.length)));
+			r.add(singles);
 			return;
 		}
 		int next = multi.get(start);
@@ -336,21 +334,16 @@ public class TypedSets {
 			SingleTypedIDList l = (SingleTypedIDList) in;
 			if (l.getIdType() == target)
 				return l.getData();
-			IIDTypeMapper<Integer, Integer> m = findMapper(l.getIdType(), target);
+			MappingTable m = MappingCaches.get(l.getIdType(), target);
 			if (m == null) // not mappable all invalid
 				return allInvalid(in, target);
-			Collection<Set<Integer>> r = m.applySeq(l.getData());
-			if (r == null)
-				return allInvalid(in, target);
 			// map result to a list
-			return new TypedList(ImmutableList.copyOf(Collections2.transform(r, toSingleOrInvalid)), target);
+			return TypedList.of(SortKeys.map(SortKeys.toIntArray(l.getData()), l.getIdType(), target), target);
 		}
 		// we have multiple types
-
-		// use a cache for better performance
-		LoadingCache<IDType, IIDTypeMapper<Integer, Integer>> cache = MappingCaches.create(null, target);
-
-		return new TypedList(ImmutableList.copyOf(Lists.transform(in, map(cache))), target);
+		if (in instanceof PackedTypedIDList)
+			return map((PackedTypedIDList) in, target);
+		return new TypedList(ImmutableList.copyOf(Lists.transform(in, map(target))), target);
 	}
 
 	/**
@@ -369,8 +362,46 @@ public class TypedSets {
 			return sort(((ISingleTypedIDCollection) in), comparators);
 
 		TypedID[] r = in.toArray(new TypedID[0]);
-		Arrays.sort(r, MappingComparators.of(comparators));
-		return ImmutableList.copyOf(r);
+		int[] ids = new int[r.length];
+		for (int i = 0; i < r.length; ++i)
+			ids[i] = r[i].getId();
+		int[][] keys = new int[comparators.length + 1][];
+		for (int i = 0; i < comparators.length; ++i) {
+			ITypedComparator c = comparators[i];
+			keys[i] = SortKeys.of(c, map(r, c.getIdType()));
+		}
+		// ties by raw id like the former comparator, the stable sort keeps the input order of the remaining ties, i.e.
+		// the same id of different id types
+		keys[comparators.length] = ids;
+		int[] index = KeySort.sortIndex(keys, r.length);
+		TypedID[] sorted = new TypedID[r.length];
+		for (int i = 0; i < r.length; ++i)
+			sorted[i] = r[index[i]];
+		return ImmutableList.copyOf(sorted);
+	}
+
+	/**
+	 * maps the given ids to the target, resolving the {@link MappingTable} once per source id type
+	 */
+	private static int[] map(TypedID[] in, IDType target) {
+		Map<IDType, MappingTable> tables = new HashMap<>();
+		int[] r = new int[in.length];
+		for (int i = 0; i < in.length; ++i) {
+			final IDType source = in[i].getIdType();
+			if (source.equals(target)) {
+				r[i] = in[i].getId();
+				continue;
+			}
+			MappingTable m;
+			if (tables.containsKey(source))
+				m = tables.get(source);
+			else {
+				m = MappingCaches.get(source, target);
+				tables.put(source, m);
+			}
+			r[i] = m == null ? INVALID_ID : m.mapSingle(in[i].getId());
+		}
+		return r;
 	}
 
 	/**
@@ -384,10 +415,28 @@ public class TypedSets {
 		return new SingleTypedIDList(sort(in.getData(), comparators));
 	}
 
+	/**
+	 * sorts the given collection by first extracting a primitive key per comparator and id and sorting the ids by these
+	 * keys afterwards
+	 *
+	 * @param in
+	 * @param comparators
+	 * @return
+	 */
 	public static TypedList sort(ITypedCollection in, ITypedComparator... comparators) {
-		Integer[] r = in.toArray(new Integer[0]);
-		Arrays.sort(r, MappingComparators.of(in.getIdType(), comparators));
-		return new TypedList(Arrays.asList(r), in.getIdType());
+		final IDType idType = in.getIdType();
+		int[] ids = SortKeys.toIntArray(in);
+		int[][] keys = new int[comparators.length + 1][];
+		for (int i = 0; i < comparators.length; ++i) {
+			ITypedComparator c = comparators[i];
+			keys[i] = SortKeys.of(c, SortKeys.map(ids, idType, c.getIdType()));
+		}
+		keys[comparators.length] = ids; // by id
+		int[] index = KeySort.sortIndex(keys, ids.length);
+		int[] r = new int[ids.length];
+		for (int i = 0; i < r.length; ++i)
+			r[i] = ids[index[i]];
+		return TypedList.of(r, idType);
 	}
 
 	public static MultiTypedList sort(IMultiTypedCollection in, ITypedComparator... comparators) {
@@ -395,22 +444,66 @@ public class TypedSets {
 		if (comparators.length == 0 || in.size() <= 1)
 			return in.asList();
 
+		final IDType[] idTypes = in.getIDTypes();
 		int[][] r = in.toArray(new int[0][]);
-		Arrays.sort(r, MappingComparators.of(in.getIDTypes(), comparators));
-		return new MultiTypedList(in.getIDTypes(), ImmutableList.copyOf(r));
+		List<int[]> keys = new ArrayList<>(comparators.length + idTypes.length);
+		int[] columns = ColumnPlan.columns(idTypes, comparators);
+		for (int i = 0; i < comparators.length; ++i) {
+			if (columns[i] < 0) // nothing to map
+				continue;
+			keys.add(SortKeys.of(comparators[i], SortKeys.column(r, columns[i])));
+		}
+		for (int i = 0; i < idTypes.length; ++i)
+			// by the ids
+			keys.add(SortKeys.column(r, i));
+		int[] index = KeySort.sortIndex(keys.toArray(new int[0][]), r.length);
+		int[][] sorted = new int[r.length][];
+		for (int i = 0; i < r.length; ++i)
+			sorted[i] = r[index[i]];
+		return new MultiTypedList(idTypes, ImmutableList.copyOf(sorted));
+	}
+
+	/**
+	 * maps the packed ids without creating {@link TypedID}s, looking up the {@link MappingTable} once per id type
+	 */
+	private static TypedList map(PackedTypedIDList in, IDType target) {
+		final short targetCode = IDTypeCodes.code(target);
+		Map<Short, MappingTable> tables = new HashMap<>();
+		int[] r = new int[in.size()];
+		for (int i = 0; i < r.length; ++i) {
+			final long v = in.getPacked(i);
+			final short code = IDTypeCodes.codeOf(v);
+			final int id = IDTypeCodes.idOf(v);
+			if (code == targetCode) {
+				r[i] = id;
+				continue;
+			}
+			MappingTable m;
+			if (tables.containsKey(code))
+				m = tables.get(code);
+			else {
+				m = MappingCaches.get(IDTypeCodes.idType(code), target);
+				tables.put(code, m);
+			}
+			r[i] = m == null ? INVALID_ID : m.mapSingle(id);
+		}
+		return TypedList.of(r, target);
 	}
+
 	/**
-	 * @param cache
+	 * @param target
 	 * @return
 	 */
-	private static Function<TypedID, Integer> map(final LoadingCache<IDType, IIDTypeMapper<Integer, Integer>> cache) {
+	private static Function<TypedID, Integer> map(final IDType target) {
 		return new Function<TypedID, Integer>() {
 			@Override
 			public Integer apply(TypedID input) {
 				if (input == null)
 					return INVALID_ID;
-				IIDTypeMapper<Integer, Integer> m = cache.getUnchecked(input.getIdType());
-				return mapSingle(m, input.getId());
+				if (input.getIdType() == target)
+					return input.getId();
+				MappingTable m = MappingCaches.get(input.getIdType(), target);
+				return m == null ? INVALID_ID : m.mapSingle(input.getId());
 			}
 		};
 	}
@@ -478,4 +571,29 @@ public class TypedSets {
 		System.out.println(intersection);
 	}
 
+	/**
+	 * hash consing of typed sets: returns the canonical instance of all sets with the same {@link IDType} and content.
+	 * Interned sets cache their hash code and are compared by identity, such that duplicated large sets share their
+	 * memory. The canonical instance is looked up first, just a new one is a private copy of the given set, such that
+	 * later changes to the sets of the caller don't affect the shared instance.
+	 *
+	 * @param set
+	 * @return the canonical instance
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends TypedSet> T intern(T set) {
+		if (set == null || set.isInterned())
+			return set;
+		synchronized (CANONICAL) {
+			WeakReference<TypedSet> ref = CANONICAL.get(set);
+			TypedSet r = ref == null ? null : ref.get();
+			if (r == null) {
+				r = set.detachedCopy();
+				r.markInterned();
+				// the value references the key weakly, too, such that the entry can be collected
+				CANONICAL.put(r, new WeakReference<>(r));
+			}
+			return (T) r;
+		}
+	}
 }
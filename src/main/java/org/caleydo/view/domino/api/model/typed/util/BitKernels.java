@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * word wise bitmap kernels over <code>long[]</code> words, used by the {@link RoaringBitmapContainer}s of
+ * {@link RoaringSet} and by {@link RoaringSets}
+ *
+ * the implementation is selected once at startup via the system property
+ * <code>org.caleydo.view.domino.bitkernels</code>: <code>scalar</code> for plain loops or <code>unrolled</code>
+ * (default) for loops processing four words per iteration with independent accumulators. Another implementation, e.g.
+ * one based on SIMD intrinsics, can be installed using {@link #set(BitKernels)}
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public abstract class BitKernels {
+	private static volatile BitKernels instance = select(System.getProperty("org.caleydo.view.domino.bitkernels",
+			"unrolled"));
+
+	/**
+	 * @return the active implementation
+	 */
+	public static BitKernels get() {
+		return instance;
+	}
+
+	/**
+	 * @param kernels
+	 *            setter, see {@link #instance}
+	 */
+	public static void set(BitKernels kernels) {
+		instance = Preconditions.checkNotNull(kernels);
+	}
+
+	static BitKernels select(String name) {
+		if ("scalar".equalsIgnoreCase(name))
+			return new Scalar();
+		return new Unrolled();
+	}
+
+	/**
+	 * r = a & b for the first n words
+	 *
+	 * @return the cardinality of the result
+	 */
+	public abstract int and(long[] a, long[] b, long[] r, int n);
+
+	/**
+	 * r = a | b for the first n words
+	 *
+	 * @return the cardinality of the result
+	 */
+	public abstract int or(long[] a, long[] b, long[] r, int n);
+
+	/**
+	 * r = a & ~b for the first n words
+	 *
+	 * @return the cardinality of the result
+	 */
+	public abstract int andNot(long[] a, long[] b, long[] r, int n);
+
+	/**
+	 * @return the cardinality of a & b for the first n words, without materializing it
+	 */
+	public abstract int andCardinality(long[] a, long[] b, int n);
+
+	/**
+	 * @return the number of set bits in the first n words
+	 */
+	public abstract int popcount(long[] a, int n);
+
+	private static final class Scalar extends BitKernels {
+		@Override
+		public int and(long[] a, long[] b, long[] r, int n) {
+			int c = 0;
+			for (int i = 0; i < n; ++i) {
+				r[i] = a[i] & b[i];
+				c += Long.bitCount(r[i]);
+			}
+			return c;
+		}
+
+		@Override
+		public int or(long[] a, long[] b, long[] r, int n) {
+			int c = 0;
+			for (int i = 0; i < n; ++i) {
+				r[i] = a[i] | b[i];
+				c += Long.bitCount(r[i]);
+			}
+			return c;
+		}
+
+		@Override
+		public int andNot(long[] a, long[] b, long[] r, int n) {
+			int c = 0;
+			for (int i = 0; i < n; ++i) {
+				r[i] = a[i] & ~b[i];
+				c += Long.bitCount(r[i]);
+			}
+			return c;
+		}
+
+		@Override
+		public int andCardinality(long[] a, long[] b, int n) {
+			int c = 0;
+			for (int i = 0; i < n; ++i)
+				c += Long.bitCount(a[i] & b[i]);
+			return c;
+		}
+
+		@Override
+		public int popcount(long[] a, int n) {
+			int c = 0;
+			for (int i = 0; i < n; ++i)
+				c += Long.bitCount(a[i]);
+			return c;
+		}
+	}
+
+	/**
+	 * four words per iteration, the bitwise part is a candidate for the JIT's superword optimization and the popcounts
+	 * don't depend on each other
+	 */
+	private static final class Unrolled extends BitKernels {
+		@Override
+		public int and(long[] a, long[] b, long[] r, int n) {
+			int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+			int i = 0;
+			for (final int end = n & ~3; i < end; i += 4) {
+				final long r0 = a[i] & b[i], r1 = a[i + 1] & b[i + 1];
+				final long r2 = a[i + 2] & b[i + 2], r3 = a[i + 3] & b[i + 3];
+				r[i] = r0;
+				r[i + 1] = r1;
+				r[i + 2] = r2;
+				r[i + 3] = r3;
+				c0 += Long.bitCount(r0);
+				c1 += Long.bitCount(r1);
+				c2 += Long.bitCount(r2);
+				c3 += Long.bitCount(r3);
+			}
+			for (; i < n; ++i) {
+				r[i] = a[i] & b[i];
+				c0 += Long.bitCount(r[i]);
+			}
+			return c0 + c1 + c2 + c3;
+		}
+
+		@Override
+		public int or(long[] a, long[] b, long[] r, int n) {
+			int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+			int i = 0;
+			for (final int end = n & ~3; i < end; i += 4) {
+				final long r0 = a[i] | b[i], r1 = a[i + 1] | b[i + 1];
+				final long r2 = a[i + 2] | b[i + 2], r3 = a[i + 3] | b[i + 3];
+				r[i] = r0;
+				r[i + 1] = r1;
+				r[i + 2] = r2;
+				r[i + 3] = r3;
+				c0 += Long.bitCount(r0);
+				c1 += Long.bitCount(r1);
+				c2 += Long.bitCount(r2);
+				c3 += Long.bitCount(r3);
+			}
+			for (; i < n; ++i) {
+				r[i] = a[i] | b[i];
+				c0 += Long.bitCount(r[i]);
+			}
+			return c0 + c1 + c2 + c3;
+		}
+
+		@Override
+		public int andNot(long[] a, long[] b, long[] r, int n) {
+			int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+			int i = 0;
+			for (final int end = n & ~3; i < end; i += 4) {
+				final long r0 = a[i] & ~b[i], r1 = a[i + 1] & ~b[i + 1];
+				final long r2 = a[i + 2] & ~b[i + 2], r3 = a[i + 3] & ~b[i + 3];
+				r[i] = r0;
+				r[i + 1] = r1;
+				r[i + 2] = r2;
+				r[i + 3] = r3;
+				c0 += Long.bitCount(r0);
+				c1 += Long.bitCount(r1);
+				c2 += Long.bitCount(r2);
+				c3 += Long.bitCount(r3);
+			}
+			for (; i < n; ++i) {
+				r[i] = a[i] & ~b[i];
+				c0 += Long.bitCount(r[i]);
+			}
+			return c0 + c1 + c2 + c3;
+		}
+
+		@Override
+		public int andCardinality(long[] a, long[] b, int n) {
+			int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+			int i = 0;
+			for (final int end = n & ~3; i < end; i += 4) {
+				c0 += Long.bitCount(a[i] & b[i]);
+				c1 += Long.bitCount(a[i + 1] & b[i + 1]);
+				c2 += Long.bitCount(a[i + 2] & b[i + 2]);
+				c3 += Long.bitCount(a[i + 3] & b[i + 3]);
+			}
+			for (; i < n; ++i)
+				c0 += Long.bitCount(a[i] & b[i]);
+			return c0 + c1 + c2 + c3;
+		}
+
+		@Override
+		public int popcount(long[] a, int n) {
+			int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+			int i = 0;
+			for (final int end = n & ~3; i < end; i += 4) {
+				c0 += Long.bitCount(a[i]);
+				c1 += Long.bitCount(a[i + 1]);
+				c2 += Long.bitCount(a[i + 2]);
+				c3 += Long.bitCount(a[i + 3]);
+			}
+			for (; i < n; ++i)
+				c0 += Long.bitCount(a[i]);
+			return c0 + c1 + c2 + c3;
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * a set of fixed length int tuples stored column wise, i.e. one int array per tuple position, deduplicated by an open
+ * addressing hash index over the row numbers
+ *
+ * in contrast to a {@link java.util.HashSet} of int arrays no per tuple objects are created and tuples are compared by
+ * value instead of by identity. The rows are kept in insertion order.
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public class ColumnarTupleSet extends AbstractSet<int[]> {
+	private static final int EMPTY = -1;
+
+	private final int depth;
+	private int[][] columns;
+	private int size;
+
+	/**
+	 * open addressing table containing the row index or {@link #EMPTY}
+	 */
+	private int[] table;
+
+	public ColumnarTupleSet(int depth) {
+		this(depth, 16);
+	}
+
+	public ColumnarTupleSet(int depth, int expectedSize) {
+		Preconditions.checkArgument(depth > 0, "at least one column required");
+		this.depth = depth;
+		final int capacity = Math.max(expectedSize, 4);
+		this.columns = new int[depth][capacity];
+		this.table = newTable(capacity);
+	}
+
+	private static int[] newTable(int capacity) {
+		// load factor of at most 0.5
+		int[] t = new int[Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) * 2];
+		Arrays.fill(t, EMPTY);
+		return t;
+	}
+
+	public int depth() {
+		return depth;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the value of the given row and column
+	 */
+	public int get(int row, int column) {
+		Preconditions.checkElementIndex(row, size);
+		return columns[column][row];
+	}
+
+	/**
+	 * @return a copy of the given row
+	 */
+	public int[] row(int row) {
+		Preconditions.checkElementIndex(row, size);
+		int[] r = new int[depth];
+		for (int i = 0; i < depth; ++i)
+			r[i] = columns[i][row];
+		return r;
+	}
+
+	/**
+	 * @return a read only view of the given column, without copying it
+	 */
+	public IntList column(int column) {
+		return new IntList(columns[column], 0, size);
+	}
+
+	/**
+	 * @return a compressed set of the distinct values of the given column
+	 */
+	public RoaringSet distinct(int column) {
+		final int[] c = columns[column];
+		RoaringSet r = new RoaringSet();
+		for (int i = 0; i < size; ++i)
+			r.add(c[i]);
+		return r;
+	}
+
+	private static int hash(int[] tuple) {
+		int h = 1;
+		for (int v : tuple)
+			h = 31 * h + v;
+		return mix(h);
+	}
+
+	private int hashRow(int row) {
+		int h = 1;
+		for (int i = 0; i < depth; ++i)
+			h = 31 * h + columns[i][row];
+		return mix(h);
+	}
+
+	/**
+	 * murmur3 finalizer for a better distribution of the low bits
+	 */
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	private boolean equalsRow(int row, int[] tuple) {
+		for (int i = 0; i < depth; ++i)
+			if (columns[i][row] != tuple[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return the row index of the given tuple or -1 if it is not part of the set
+	 */
+	public int indexOf(int[] tuple) {
+		if (tuple == null || tuple.length != depth)
+			return -1;
+		final int mask = table.length - 1;
+		for (int slot = hash(tuple) & mask;; slot = (slot + 1) & mask) {
+			final int row = table[slot];
+			if (row == EMPTY)
+				return -1;
+			if (equalsRow(row, tuple))
+				return row;
+		}
+	}
+
+	/**
+	 * sum of the {@link Arrays#hashCode(int[])} of all rows, computed from the columns without copying the rows
+	 */
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (int row = 0; row < size; ++row) {
+			int r = 1;
+			for (int i = 0; i < depth; ++i)
+				r = 31 * r + columns[i][row];
+			h += r;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof int[] && indexOf((int[]) o) >= 0;
+	}
+
+	/**
+	 * adds a tuple, the given array is copied and can be reused afterwards
+	 */
+	@Override
+	public boolean add(int[] tuple) {
+		Preconditions.checkArgument(tuple.length == depth, "invalid tuple length");
+		final int mask = table.length - 1;
+		int slot = hash(tuple) & mask;
+		for (;; slot = (slot + 1) & mask) {
+			final int row = table[slot];
+			if (row == EMPTY)
+				break;
+			if (equalsRow(row, tuple))
+				return false;
+		}
+		if (size == columns[0].length)
+			grow();
+		for (int i = 0; i < depth; ++i)
+			columns[i][size] = tuple[i];
+		if ((size + 1) * 2 > table.length)
+			rehash(table.length * 2); // will insert the new row, too
+		else
+			table[slot] = size;
+		size++;
+		return true;
+	}
+
+	private void grow() {
+		final int n = columns[0].length * 2;
+		for (int i = 0; i < depth; ++i)
+			columns[i] = Arrays.copyOf(columns[i], n);
+	}
+
+	private void rehash(int length) {
+		table = new int[length];
+		Arrays.fill(table, EMPTY);
+		final int mask = length - 1;
+		for (int row = 0; row <= size; ++row) {
+			int slot = hashRow(row) & mask;
+			while (table[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+			table[slot] = row;
+		}
+	}
+
+	@Override
+	public Iterator<int[]> iterator() {
+		return new Iterator<int[]>() {
+			private int row = 0;
+
+			@Override
+			public boolean hasNext() {
+				return row < size;
+			}
+
+			@Override
+			public int[] next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return row(row++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
@@ -15,6 +15,8 @@ import com.google.common.collect.Iterables;
 /**
  * an immutable list of items in a read only fashion
  *
+ * the item lookup uses a binary search over the prefix sums of the list sizes
+ *
  * @author Samuel Gratzl
  *
  */
@@ -45,13 +47,43 @@ public final class ConcatedList<T> extends AbstractList<T> {
 
 	@Override
 	public T get(int index) {
-		for (int i = 0; i < ends.length; ++i) {
-			if (index < ends[i]) {
-				final List<T> l = groups.get(i);
-				return l.get(index - ends[i] + l.size());
-			}
+		final int i = indexOfList(index);
+		if (i < 0)
+			throw new IndexOutOfBoundsException();
+		final List<T> l = groups.get(i);
+		return l.get(index - ends[i] + l.size());
+	}
+
+	/**
+	 * @param index
+	 * @return the index of the list containing the given item index or -1 if out of bounds
+	 */
+	public int indexOfList(int index) {
+		if (index < 0)
+			return -1;
+		final int i = upperBound(ends, index);
+		return i < ends.length ? i : -1;
+	}
+
+	/**
+	 * binary search in prefix sums
+	 *
+	 * @param ends
+	 *            ascending prefix sums
+	 * @param index
+	 * @return the first position, whose value is greater than the given index or ends.length if there is none
+	 */
+	public static int upperBound(int[] ends, int index) {
+		int low = 0;
+		int high = ends.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (ends[mid] <= index)
+				low = mid + 1;
+			else
+				high = mid;
 		}
-		throw new IndexOutOfBoundsException();
+		return low;
 	}
 
 	@Override
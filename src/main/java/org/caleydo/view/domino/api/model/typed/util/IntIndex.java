@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * an immutable reverse index of a list of ints, i.e. a lookup from value to its first position using an open
+ * addressing hash table
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class IntIndex {
+	private static final int EMPTY = -1;
+
+	private final int[] keys;
+	private final int[] positions;
+
+	private IntIndex(int capacity) {
+		int length = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) * 2; // load factor of at most 0.5
+		this.keys = new int[length];
+		this.positions = new int[length];
+		Arrays.fill(positions, EMPTY);
+	}
+
+	public static IntIndex of(int[] data, int offset, int size) {
+		IntIndex index = new IntIndex(size);
+		for (int i = 0; i < size; ++i)
+			index.put(data[offset + i], i);
+		return index;
+	}
+
+	public static IntIndex of(List<Integer> data) {
+		IntIndex index = new IntIndex(data.size());
+		int i = 0;
+		for (Integer v : data)
+			index.put(v.intValue(), i++);
+		return index;
+	}
+
+	private static int hash(int v) {
+		int h = v * 0x9E3779B9; // fibonacci hashing
+		return h ^ (h >>> 16);
+	}
+
+	private void put(int value, int position) {
+		final int mask = keys.length - 1;
+		int slot = hash(value) & mask;
+		while (positions[slot] != EMPTY) {
+			if (keys[slot] == value) // keep the first position
+				return;
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = value;
+		positions[slot] = position;
+	}
+
+	/**
+	 * @param value
+	 * @return the first position of the given value or -1 if not found
+	 */
+	public int indexOf(int value) {
+		final int mask = keys.length - 1;
+		for (int slot = hash(value) & mask; positions[slot] != EMPTY; slot = (slot + 1) & mask) {
+			if (keys[slot] == value)
+				return positions[slot];
+		}
+		return -1;
+	}
+
+	public boolean contains(int value) {
+		return indexOf(value) >= 0;
+	}
+}
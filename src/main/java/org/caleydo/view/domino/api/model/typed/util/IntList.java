@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * an immutable list of ints backed by a primitive array
+ *
+ * {@link #indexOf(Object)} and {@link #contains(Object)} use a lazily built {@link IntIndex} for larger lists
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class IntList extends AbstractList<Integer> implements RandomAccess {
+	/**
+	 * up to this size a linear scan is used instead of a reverse index
+	 */
+	private static final int LINEAR_SCAN_THRESHOLD = 16;
+
+	private final int[] data;
+	private final int offset;
+	private final int size;
+
+	private volatile IntIndex index;
+
+	/**
+	 * @param data
+	 *            the data, which is not copied and must not be modified afterwards
+	 */
+	public IntList(int[] data) {
+		this(data, 0, data.length);
+	}
+
+	public IntList(int[] data, int offset, int size) {
+		Preconditions.checkPositionIndexes(offset, offset + size, data.length);
+		this.data = data;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public static IntList of(Collection<Integer> values) {
+		if (values instanceof IntList)
+			return (IntList) values;
+		int[] r = new int[values.size()];
+		int i = 0;
+		for (Integer v : values)
+			r[i++] = v.intValue();
+		return new IntList(r);
+	}
+
+	public int getInt(int index) {
+		Preconditions.checkElementIndex(index, size);
+		return data[offset + index];
+	}
+
+	@Override
+	public Integer get(int index) {
+		return getInt(index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return a copy of the values
+	 */
+	public int[] toIntArray() {
+		return Arrays.copyOfRange(data, offset, offset + size);
+	}
+
+	@Override
+	public IntList subList(int fromIndex, int toIndex) {
+		Preconditions.checkPositionIndexes(fromIndex, toIndex, size);
+		return new IntList(data, offset + fromIndex, toIndex - fromIndex);
+	}
+
+	/**
+	 * @return the reverse index of this list
+	 */
+	public IntIndex index() {
+		IntIndex i = index;
+		if (i == null)
+			index = i = IntIndex.of(data, offset, size);
+		return i;
+	}
+
+	public int indexOf(int value) {
+		if (size <= LINEAR_SCAN_THRESHOLD) {
+			for (int i = 0; i < size; ++i)
+				if (data[offset + i] == value)
+					return i;
+			return -1;
+		}
+		return index().indexOf(value);
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		if (!(o instanceof Integer))
+			return -1;
+		return indexOf(((Integer) o).intValue());
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		if (!(o instanceof Integer))
+			return -1;
+		final int v = ((Integer) o).intValue();
+		for (int i = size - 1; i >= 0; --i)
+			if (data[offset + i] == v)
+				return i;
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = 0; i < size; ++i)
+			h = 31 * h + data[offset + i];
+		return h;
+	}
+}
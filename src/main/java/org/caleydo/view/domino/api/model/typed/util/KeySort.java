@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * sorting of index permutations by precomputed primitive keys
+ *
+ * the keys are given as one int array per criterion, the first one is the most significant one. Positions are compared
+ * lexicographically over all criteria without any boxing or comparator calls. Large inputs are sorted using a
+ * parallel merge sort, see {@link #setParallelThreshold(int)}
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class KeySort {
+	/**
+	 * below this size insertion sort is used
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	/**
+	 * minimal number of positions to sort in parallel
+	 */
+	private static volatile int parallelThreshold = 1 << 16;
+	private static volatile ForkJoinPool pool;
+
+	private KeySort() {
+
+	}
+
+	/**
+	 * @param parallelThreshold
+	 *            setter, see {@link #parallelThreshold}, {@link Integer#MAX_VALUE} to disable parallel sorting
+	 */
+	public static void setParallelThreshold(int parallelThreshold) {
+		KeySort.parallelThreshold = Math.max(parallelThreshold, INSERTION_SORT_THRESHOLD * 2);
+	}
+
+	/**
+	 * @param pool
+	 *            setter, see {@link #pool}, null to use a shared default pool
+	 */
+	public static void setPool(ForkJoinPool pool) {
+		KeySort.pool = pool;
+	}
+
+	private static ForkJoinPool pool() {
+		ForkJoinPool p = pool;
+		if (p == null) {
+			synchronized (KeySort.class) {
+				if (pool == null)
+					pool = new ForkJoinPool();
+				p = pool;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * stable sort of the positions 0..size-1 by the given keys
+	 *
+	 * @param keys
+	 *            criteria, each of at least the given size
+	 * @param size
+	 * @return the sorted permutation of the positions
+	 */
+	public static int[] sortIndex(int[][] keys, int size) {
+		int[] index = identity(size);
+		if (size <= 1)
+			return index;
+		final int threshold = parallelThreshold;
+		if (size >= threshold) {
+			ForkJoinPool p = pool();
+			// split into about 4 tasks per worker
+			int grain = Math.max(size / (p.getParallelism() * 4), threshold / 4);
+			p.invoke(new MergeSortTask(keys, index, index.clone(), 0, size, grain));
+		} else
+			mergeSort(keys, index, index.clone(), 0, size);
+		return index;
+	}
+
+	static int[] identity(int size) {
+		int[] index = new int[size];
+		for (int i = 0; i < size; ++i)
+			index[i] = i;
+		return index;
+	}
+
+	/**
+	 * computes dense ranks, i.e. equal positions get the same rank, of the positions 0..size-1 by the given keys
+	 *
+	 * @param keys
+	 * @param size
+	 * @return the rank for each position
+	 */
+	public static int[] denseRank(int[][] keys, int size) {
+		int[] index = sortIndex(keys, size);
+		int[] ranks = new int[size];
+		int r = 0;
+		for (int i = 0; i < size; ++i) {
+			if (i > 0 && compare(keys, index[i - 1], index[i]) != 0)
+				r++;
+			ranks[index[i]] = r;
+		}
+		return ranks;
+	}
+
+	static int compare(int[][] keys, int a, int b) {
+		for (int[] k : keys) {
+			final int ka = k[a];
+			final int kb = k[b];
+			if (ka != kb)
+				return ka < kb ? -1 : 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * sorts dst[from,to), src has to contain the same values in the same range
+	 */
+	static void mergeSort(int[][] keys, int[] dst, int[] src, int from, int to) {
+		final int length = to - from;
+		if (length <= INSERTION_SORT_THRESHOLD) {
+			insertionSort(keys, dst, from, to);
+			return;
+		}
+		final int mid = (from + to) >>> 1;
+		// sort the halves of src using dst as buffer
+		mergeSort(keys, src, dst, from, mid);
+		mergeSort(keys, src, dst, mid, to);
+		merge(keys, src, dst, from, mid, to);
+	}
+
+	/**
+	 * merges the sorted ranges src[from,mid) and src[mid,to) into dst[from,to)
+	 */
+	static void merge(int[][] keys, int[] src, int[] dst, int from, int mid, int to) {
+		if (compare(keys, src[mid - 1], src[mid]) <= 0) { // already in order
+			System.arraycopy(src, from, dst, from, to - from);
+			return;
+		}
+		for (int i = from, p = from, q = mid; i < to; ++i) {
+			if (q >= to || (p < mid && compare(keys, src[p], src[q]) <= 0))
+				dst[i] = src[p++];
+			else
+				dst[i] = src[q++];
+		}
+	}
+
+	private static void insertionSort(int[][] keys, int[] a, int from, int to) {
+		for (int i = from + 1; i < to; ++i) {
+			final int v = a[i];
+			int j = i - 1;
+			while (j >= from && compare(keys, a[j], v) > 0) {
+				a[j + 1] = a[j];
+				j--;
+			}
+			a[j + 1] = v;
+		}
+	}
+
+	private static final class MergeSortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[][] keys;
+		private final int[] dst;
+		private final int[] src;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		public MergeSortTask(int[][] keys, int[] dst, int[] src, int from, int to, int grain) {
+			this.keys = keys;
+			this.dst = dst;
+			this.src = src;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				mergeSort(keys, dst, src, from, to);
+				return;
+			}
+			final int mid = (from + to) >>> 1;
+			// sort the halves of src using dst as buffer
+			invokeAll(new MergeSortTask(keys, src, dst, from, mid, grain), new MergeSortTask(keys, src, dst, mid, to,
+					grain));
+			merge(keys, src, dst, from, mid, to);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.Arrays;
+
+/**
+ * sparse {@link RoaringContainer} storing the values as a sorted char array
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class RoaringArrayContainer extends RoaringContainer {
+	char[] content;
+	int cardinality;
+
+	RoaringArrayContainer() {
+		this(new char[4], 0);
+	}
+
+	RoaringArrayContainer(char[] content, int cardinality) {
+		this.content = content;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	boolean contains(int low) {
+		return indexOf(low) >= 0;
+	}
+
+	private int indexOf(int low) {
+		return Arrays.binarySearch(content, 0, cardinality, (char) low);
+	}
+
+	@Override
+	RoaringContainer add(int low) {
+		int index = indexOf(low);
+		if (index >= 0) // already there
+			return this;
+		if (cardinality >= MAX_ARRAY_SIZE)
+			return toBitmap().add(low);
+		index = -index - 1;
+		if (cardinality == content.length)
+			content = Arrays.copyOf(content, Math.min(Math.max(8, cardinality * 2), MAX_ARRAY_SIZE));
+		System.arraycopy(content, index, content, index + 1, cardinality - index);
+		content[index] = (char) low;
+		cardinality++;
+		return this;
+	}
+
+	@Override
+	RoaringContainer remove(int low) {
+		int index = indexOf(low);
+		if (index < 0)
+			return this;
+		System.arraycopy(content, index + 1, content, index, cardinality - index - 1);
+		cardinality--;
+		return this;
+	}
+
+	RoaringBitmapContainer toBitmap() {
+		long[] words = new long[RoaringBitmapContainer.WORDS];
+		for (int i = 0; i < cardinality; ++i) {
+			final int v = content[i];
+			words[v >>> 6] |= 1L << v;
+		}
+		return new RoaringBitmapContainer(words, cardinality);
+	}
+
+	@Override
+	RoaringContainer and(RoaringContainer o) {
+		char[] r = new char[Math.min(cardinality, o.cardinality())];
+		int c = 0;
+		if (o instanceof RoaringArrayContainer) {
+			RoaringArrayContainer a = (RoaringArrayContainer) o;
+			int i = 0, j = 0;
+			while (i < cardinality && j < a.cardinality) {
+				char vi = content[i];
+				char vj = a.content[j];
+				if (vi < vj)
+					i++;
+				else if (vi > vj)
+					j++;
+				else {
+					r[c++] = vi;
+					i++;
+					j++;
+				}
+			}
+		} else {
+			for (int i = 0; i < cardinality; ++i)
+				if (o.contains(content[i]))
+					r[c++] = content[i];
+		}
+		return new RoaringArrayContainer(r, c);
+	}
+
+	@Override
+	int andCardinality(RoaringContainer o) {
+		int c = 0;
+		if (o instanceof RoaringArrayContainer) {
+			RoaringArrayContainer a = (RoaringArrayContainer) o;
+			int i = 0, j = 0;
+			while (i < cardinality && j < a.cardinality) {
+				char vi = content[i];
+				char vj = a.content[j];
+				if (vi < vj)
+					i++;
+				else if (vi > vj)
+					j++;
+				else {
+					c++;
+					i++;
+					j++;
+				}
+			}
+		} else {
+			for (int i = 0; i < cardinality; ++i)
+				if (o.contains(content[i]))
+					c++;
+		}
+		return c;
+	}
+
+	@Override
+	RoaringContainer or(RoaringContainer o) {
+		if (o instanceof RoaringBitmapContainer)
+			return o.or(this);
+		RoaringArrayContainer a = (RoaringArrayContainer) o;
+		if (cardinality + a.cardinality > MAX_ARRAY_SIZE) {
+			RoaringBitmapContainer r = toBitmap();
+			for (int j = 0; j < a.cardinality; ++j)
+				r.set(a.content[j]);
+			return r.optimize();
+		}
+		char[] r = new char[cardinality + a.cardinality];
+		int c = 0;
+		int i = 0, j = 0;
+		while (i < cardinality && j < a.cardinality) {
+			char vi = content[i];
+			char vj = a.content[j];
+			if (vi < vj) {
+				r[c++] = vi;
+				i++;
+			} else if (vi > vj) {
+				r[c++] = vj;
+				j++;
+			} else {
+				r[c++] = vi;
+				i++;
+				j++;
+			}
+		}
+		while (i < cardinality)
+			r[c++] = content[i++];
+		while (j < a.cardinality)
+			r[c++] = a.content[j++];
+		return new RoaringArrayContainer(r, c);
+	}
+
+	@Override
+	RoaringContainer andNot(RoaringContainer o) {
+		char[] r = new char[cardinality];
+		int c = 0;
+		for (int i = 0; i < cardinality; ++i)
+			if (!o.contains(content[i]))
+				r[c++] = content[i];
+		return new RoaringArrayContainer(r, c);
+	}
+
+	@Override
+	int nextValue(int low) {
+		int index = indexOf(low);
+		if (index < 0)
+			index = -index - 1;
+		return index < cardinality ? content[index] : -1;
+	}
+
+	@Override
+	int fill(int[] r, int offset, int high) {
+		for (int i = 0; i < cardinality; ++i)
+			r[offset++] = high | content[i];
+		return offset;
+	}
+
+	@Override
+	RoaringContainer copy() {
+		return new RoaringArrayContainer(Arrays.copyOf(content, Math.max(cardinality, 1)), cardinality);
+	}
+
+	@Override
+	long memory() {
+		return 16 + 2L * content.length;
+	}
+}
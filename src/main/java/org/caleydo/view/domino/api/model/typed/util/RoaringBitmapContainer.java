@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.Arrays;
+
+/**
+ * dense {@link RoaringContainer} storing the values as a fixed size bitmap of 2^16 bits
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class RoaringBitmapContainer extends RoaringContainer {
+	static final int WORDS = MAX_CAPACITY / 64;
+
+	final long[] words;
+	int cardinality;
+
+	RoaringBitmapContainer(long[] words, int cardinality) {
+		this.words = words;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	boolean contains(int low) {
+		return (words[low >>> 6] & (1L << low)) != 0;
+	}
+
+	void set(int low) {
+		final long w = words[low >>> 6];
+		final long n = w | (1L << low);
+		if (n != w) {
+			words[low >>> 6] = n;
+			cardinality++;
+		}
+	}
+
+	@Override
+	RoaringContainer add(int low) {
+		set(low);
+		return this;
+	}
+
+	void clear(int low) {
+		final long w = words[low >>> 6];
+		final long n = w & ~(1L << low);
+		if (n != w) {
+			words[low >>> 6] = n;
+			cardinality--;
+		}
+	}
+
+	@Override
+	RoaringContainer remove(int low) {
+		clear(low);
+		return optimize();
+	}
+
+	/**
+	 * @return the most compact representation of this container
+	 */
+	RoaringContainer optimize() {
+		if (cardinality > MAX_ARRAY_SIZE)
+			return this;
+		char[] r = new char[Math.max(cardinality, 1)];
+		fill(r);
+		return new RoaringArrayContainer(r, cardinality);
+	}
+
+	private void fill(char[] r) {
+		int c = 0;
+		for (int i = 0; i < WORDS; ++i) {
+			long w = words[i];
+			while (w != 0) {
+				r[c++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+				w &= w - 1;
+			}
+		}
+	}
+
+	@Override
+	RoaringContainer and(RoaringContainer o) {
+		if (o instanceof RoaringArrayContainer)
+			return o.and(this);
+		RoaringBitmapContainer b = (RoaringBitmapContainer) o;
+		long[] r = new long[WORDS];
+		int c = BitKernels.get().and(words, b.words, r, WORDS);
+		return new RoaringBitmapContainer(r, c).optimize();
+	}
+
+	@Override
+	int andCardinality(RoaringContainer o) {
+		if (o instanceof RoaringArrayContainer)
+			return o.andCardinality(this);
+		RoaringBitmapContainer b = (RoaringBitmapContainer) o;
+		return BitKernels.get().andCardinality(words, b.words, WORDS);
+	}
+
+	@Override
+	RoaringContainer or(RoaringContainer o) {
+		if (o instanceof RoaringArrayContainer) {
+			RoaringArrayContainer a = (RoaringArrayContainer) o;
+			RoaringBitmapContainer r = (RoaringBitmapContainer) copy();
+			for (int j = 0; j < a.cardinality; ++j)
+				r.set(a.content[j]);
+			return r;
+		}
+		RoaringBitmapContainer b = (RoaringBitmapContainer) o;
+		long[] r = new long[WORDS];
+		int c = BitKernels.get().or(words, b.words, r, WORDS);
+		return new RoaringBitmapContainer(r, c);
+	}
+
+	@Override
+	RoaringContainer andNot(RoaringContainer o) {
+		if (o instanceof RoaringArrayContainer) {
+			RoaringArrayContainer a = (RoaringArrayContainer) o;
+			RoaringBitmapContainer r = (RoaringBitmapContainer) copy();
+			for (int j = 0; j < a.cardinality; ++j)
+				r.clear(a.content[j]);
+			return r.optimize();
+		}
+		RoaringBitmapContainer b = (RoaringBitmapContainer) o;
+		long[] r = new long[WORDS];
+		int c = BitKernels.get().andNot(words, b.words, r, WORDS);
+		return new RoaringBitmapContainer(r, c).optimize();
+	}
+
+	@Override
+	int nextValue(int low) {
+		int i = low >>> 6;
+		long w = words[i] & (-1L << low);
+		while (w == 0) {
+			if (++i >= WORDS)
+				return -1;
+			w = words[i];
+		}
+		return (i << 6) + Long.numberOfTrailingZeros(w);
+	}
+
+	@Override
+	int fill(int[] r, int offset, int high) {
+		for (int i = 0; i < WORDS; ++i) {
+			long w = words[i];
+			while (w != 0) {
+				r[offset++] = high | ((i << 6) + Long.numberOfTrailingZeros(w));
+				w &= w - 1;
+			}
+		}
+		return offset;
+	}
+
+	@Override
+	RoaringContainer copy() {
+		return new RoaringBitmapContainer(Arrays.copyOf(words, WORDS), cardinality);
+	}
+
+	@Override
+	long memory() {
+		return 16 + 8L * WORDS;
+	}
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+/**
+ * a container of the lower 16 bits of the values sharing the same upper 16 bits within a {@link RoaringSet}
+ *
+ * all operations returning a container may return a different container type, depending on the resulting density
+ *
+ * @author Samuel Gratzl
+ *
+ */
+abstract class RoaringContainer {
+	/**
+	 * maximal number of entries of an array container, beyond that a bitmap is smaller
+	 */
+	static final int MAX_ARRAY_SIZE = 4096;
+
+	/**
+	 * number of values, which can be stored in a container
+	 */
+	static final int MAX_CAPACITY = 1 << 16;
+
+	abstract int cardinality();
+
+	abstract boolean contains(int low);
+
+	abstract RoaringContainer add(int low);
+
+	abstract RoaringContainer remove(int low);
+
+	abstract RoaringContainer and(RoaringContainer o);
+
+	abstract RoaringContainer or(RoaringContainer o);
+
+	abstract RoaringContainer andNot(RoaringContainer o);
+
+	/**
+	 * @return the number of values shared with the other container without creating the intersection
+	 */
+	abstract int andCardinality(RoaringContainer o);
+
+	/**
+	 * @param low
+	 * @return the smallest value greater or equal to the given one or -1 if there is none
+	 */
+	abstract int nextValue(int low);
+
+	/**
+	 * fills the given array with the values of this container starting at the given offset
+	 *
+	 * @param high
+	 *            the upper 16 bits to combine the values with
+	 * @return the new offset
+	 */
+	abstract int fill(int[] r, int offset, int high);
+
+	abstract RoaringContainer copy();
+
+	/**
+	 * @return an approximation of the memory footprint in bytes
+	 */
+	abstract long memory();
+
+	static RoaringContainer empty() {
+		return new RoaringArrayContainer();
+	}
+
+	/**
+	 * @return whether both containers contain the same values, independent of their representation
+	 */
+	boolean sameValues(RoaringContainer other) {
+		if (cardinality() != other.cardinality())
+			return false;
+		for (int v = nextValue(0); v >= 0; v = next(v)) {
+			if (!other.contains(v))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the sum of all contained values
+	 */
+	int sum() {
+		int r = 0;
+		for (int v = nextValue(0); v >= 0; v = next(v))
+			r += v;
+		return r;
+	}
+
+	private int next(int v) {
+		return v + 1 < MAX_CAPACITY ? nextValue(v + 1) : -1;
+	}
+}
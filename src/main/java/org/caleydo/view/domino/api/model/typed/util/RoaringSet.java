@@ -0,0 +1,540 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+
+/**
+ * a compressed set of integers in the style of Roaring bitmaps: the values are partitioned by their upper 16 bits and
+ * the lower 16 bits are stored either in a sorted array (sparse) or in a bitmap (dense) container
+ *
+ * in contrast to a {@link java.util.BitSet} the memory footprint is proportional to the number of elements and not to
+ * the largest id, and set operations between two {@link RoaringSet}s work without any boxing
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public class RoaringSet extends AbstractSet<Integer> {
+	char[] keys;
+	RoaringContainer[] containers;
+	/**
+	 * number of used containers
+	 */
+	int used;
+	/**
+	 * cached number of elements
+	 */
+	private int cardinality;
+
+	public RoaringSet() {
+		this(new char[4], new RoaringContainer[4], 0, 0);
+	}
+
+	public RoaringSet(Collection<Integer> ids) {
+		this();
+		addAll(ids);
+	}
+
+	RoaringSet(char[] keys, RoaringContainer[] containers, int used, int cardinality) {
+		this.keys = keys;
+		this.containers = containers;
+		this.used = used;
+		this.cardinality = cardinality;
+	}
+
+	/**
+	 * @param it
+	 * @return a new {@link RoaringSet} containing all the given values
+	 */
+	public static RoaringSet of(Iterable<Integer> it) {
+		RoaringSet r = new RoaringSet();
+		for (Integer id : it)
+			r.add(id);
+		return r;
+	}
+
+	public static RoaringSet of(int... ids) {
+		RoaringSet r = new RoaringSet();
+		for (int id : ids)
+			r.add(id);
+		return r;
+	}
+
+	/**
+	 * bulk creation of a set out of the given sorted values
+	 *
+	 * @param values
+	 *            sorted ascending, duplicates are allowed
+	 * @param length
+	 *            number of values to consider
+	 * @return
+	 */
+	public static RoaringSet ofSorted(int[] values, int length) {
+		RoaringSet r = new RoaringSet();
+		int i = 0;
+		while (i < length) {
+			final char key = key(values[i]);
+			int j = i;
+			while (j < length && key(values[j]) == key)
+				j++;
+			// values[i..j) share the same key
+			char[] content = new char[j - i];
+			int c = 0;
+			for (int k = i; k < j; ++k) {
+				char v = (char) low(values[k]);
+				if (c == 0 || content[c - 1] != v)
+					content[c++] = v;
+			}
+			RoaringArrayContainer a = new RoaringArrayContainer(content, c);
+			r.append(key, c > RoaringContainer.MAX_ARRAY_SIZE ? a.toBitmap() : a);
+			i = j;
+		}
+		return r;
+	}
+
+	/**
+	 * @param s
+	 * @return the given set if it is already a {@link RoaringSet} else a compressed copy of it
+	 */
+	public static RoaringSet wrap(Set<Integer> s) {
+		if (s instanceof RoaringSet)
+			return (RoaringSet) s;
+		return of(s);
+	}
+
+	/**
+	 * maps the signed value to an unsigned key, such that the order of keys is the signed order of the values
+	 */
+	static char key(int v) {
+		return (char) ((v >>> 16) ^ 0x8000);
+	}
+
+	static int high(char key) {
+		return (key ^ 0x8000) << 16;
+	}
+
+	static int low(int v) {
+		return v & 0xFFFF;
+	}
+
+	private int indexOf(char key) {
+		// most of the time the last container is the one to look at
+		if (used > 0 && keys[used - 1] == key)
+			return used - 1;
+		return Arrays.binarySearch(keys, 0, used, key);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Integer))
+			return false;
+		return contains(((Integer) o).intValue());
+	}
+
+	public boolean contains(int v) {
+		int index = indexOf(key(v));
+		return index >= 0 && containers[index].contains(low(v));
+	}
+
+	@Override
+	public boolean add(Integer e) {
+		Preconditions.checkNotNull(e);
+		return add(e.intValue());
+	}
+
+	public boolean add(int v) {
+		final char key = key(v);
+		int index = indexOf(key);
+		if (index < 0) {
+			index = -index - 1;
+			insert(index, key, RoaringContainer.empty());
+		}
+		RoaringContainer c = containers[index];
+		final int before = c.cardinality();
+		containers[index] = c = c.add(low(v));
+		if (c.cardinality() == before)
+			return false;
+		cardinality++;
+		return true;
+	}
+
+	private void insert(int index, char key, RoaringContainer c) {
+		if (used == keys.length) {
+			final int n = Math.max(4, used * 2);
+			keys = Arrays.copyOf(keys, n);
+			containers = Arrays.copyOf(containers, n);
+		}
+		System.arraycopy(keys, index, keys, index + 1, used - index);
+		System.arraycopy(containers, index, containers, index + 1, used - index);
+		keys[index] = key;
+		containers[index] = c;
+		used++;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof Integer))
+			return false;
+		return remove(((Integer) o).intValue());
+	}
+
+	public boolean remove(int v) {
+		int index = indexOf(key(v));
+		if (index < 0)
+			return false;
+		RoaringContainer c = containers[index];
+		final int before = c.cardinality();
+		containers[index] = c = c.remove(low(v));
+		if (c.cardinality() == before)
+			return false;
+		cardinality--;
+		if (c.cardinality() == 0) { // remove the empty container
+			System.arraycopy(keys, index + 1, keys, index, used - index - 1);
+			System.arraycopy(containers, index + 1, containers, index, used - index - 1);
+			containers[--used] = null;
+		}
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(containers, 0, used, null);
+		used = 0;
+		cardinality = 0;
+	}
+
+	@Override
+	public int size() {
+		return cardinality;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return cardinality == 0;
+	}
+
+	/**
+	 * @return the values in ascending order
+	 */
+	public int[] toIntArray() {
+		int[] r = new int[cardinality];
+		int offset = 0;
+		for (int i = 0; i < used; ++i)
+			offset = containers[i].fill(r, offset, high(keys[i]));
+		return r;
+	}
+
+	/**
+	 * @return an approximation of the memory footprint in bytes
+	 */
+	public long memory() {
+		long r = 32 + 2L * keys.length + 8L * containers.length;
+		for (int i = 0; i < used; ++i)
+			r += containers[i].memory();
+		return r;
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return new RoaringIterator();
+	}
+
+	/**
+	 * iterates in ascending order, the state is just the next value, such that removing elements while iterating is
+	 * possible
+	 */
+	private final class RoaringIterator implements Iterator<Integer> {
+		private int index = 0;
+		private int next;
+		private boolean hasNext;
+		private int last;
+		private boolean canRemove = false;
+
+		public RoaringIterator() {
+			seek(0, 0);
+		}
+
+		private void seek(int from, int low) {
+			for (index = from; index < used; ++index, low = 0) {
+				int v = containers[index].nextValue(low);
+				if (v >= 0) {
+					next = high(keys[index]) | v;
+					hasNext = true;
+					return;
+				}
+			}
+			hasNext = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public Integer next() {
+			if (!hasNext)
+				throw new NoSuchElementException();
+			last = next;
+			canRemove = true;
+			final int l = low(next);
+			if (l == 0xFFFF)
+				seek(index + 1, 0);
+			else
+				seek(index, l + 1);
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			Preconditions.checkState(canRemove);
+			canRemove = false;
+			RoaringSet.this.remove(last);
+			if (hasNext) { // relocate as containers might be gone
+				int i = Arrays.binarySearch(keys, 0, used, key(next));
+				seek(i < 0 ? -i - 1 : i, i < 0 ? 0 : low(next));
+			}
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		// same semantics as the sum of Integer#hashCode
+		int r = 0;
+		for (int i = 0; i < used; ++i) {
+			RoaringContainer c = containers[i];
+			r += c.cardinality() * high(keys[i]) + c.sum();
+		}
+		return r;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof RoaringSet))
+			return super.equals(o);
+		RoaringSet other = (RoaringSet) o;
+		if (other.cardinality != cardinality || other.used != used)
+			return false;
+		for (int i = 0; i < used; ++i) {
+			if (keys[i] != other.keys[i] || !containers[i].sameValues(other.containers[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return a deep copy of this set
+	 */
+	public RoaringSet copy() {
+		RoaringContainer[] c = new RoaringContainer[used];
+		for (int i = 0; i < used; ++i)
+			c[i] = containers[i].copy();
+		return new RoaringSet(Arrays.copyOf(keys, used), c, used, cardinality);
+	}
+
+	public static RoaringSet and(RoaringSet a, RoaringSet b) {
+		RoaringSet r = new RoaringSet(new char[Math.min(a.used, b.used)], new RoaringContainer[Math.min(a.used,
+				b.used)], 0, 0);
+		int i = 0, j = 0;
+		while (i < a.used && j < b.used) {
+			char ki = a.keys[i];
+			char kj = b.keys[j];
+			if (ki < kj)
+				i++;
+			else if (ki > kj)
+				j++;
+			else {
+				r.append(ki, a.containers[i].and(b.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return r;
+	}
+
+	public static RoaringSet or(RoaringSet a, RoaringSet b) {
+		RoaringSet r = new RoaringSet(new char[a.used + b.used], new RoaringContainer[a.used + b.used], 0, 0);
+		int i = 0, j = 0;
+		while (i < a.used && j < b.used) {
+			char ki = a.keys[i];
+			char kj = b.keys[j];
+			if (ki < kj)
+				r.append(ki, a.containers[i++].copy());
+			else if (ki > kj)
+				r.append(kj, b.containers[j++].copy());
+			else
+				r.append(ki, a.containers[i++].or(b.containers[j++]));
+		}
+		while (i < a.used)
+			r.append(a.keys[i], a.containers[i++].copy());
+		while (j < b.used)
+			r.append(b.keys[j], b.containers[j++].copy());
+		return r;
+	}
+
+	public static RoaringSet andNot(RoaringSet a, RoaringSet b) {
+		RoaringSet r = new RoaringSet(new char[a.used], new RoaringContainer[a.used], 0, 0);
+		int i = 0, j = 0;
+		while (i < a.used && j < b.used) {
+			char ki = a.keys[i];
+			char kj = b.keys[j];
+			if (ki < kj)
+				r.append(ki, a.containers[i++].copy());
+			else if (ki > kj)
+				j++;
+			else
+				r.append(ki, a.containers[i++].andNot(b.containers[j++]));
+		}
+		while (i < a.used)
+			r.append(a.keys[i], a.containers[i++].copy());
+		return r;
+	}
+
+	public static int andCardinality(RoaringSet a, RoaringSet b) {
+		int r = 0;
+		int i = 0, j = 0;
+		while (i < a.used && j < b.used) {
+			char ki = a.keys[i];
+			char kj = b.keys[j];
+			if (ki < kj)
+				i++;
+			else if (ki > kj)
+				j++;
+			else
+				r += a.containers[i++].andCardinality(b.containers[j++]);
+		}
+		return r;
+	}
+
+	/**
+	 * number of shared elements without materializing the intersection
+	 */
+	public static int andCardinality(Set<Integer> a, Set<Integer> b) {
+		if (a.isEmpty() || b.isEmpty())
+			return 0;
+		if (a instanceof RoaringSet && b instanceof RoaringSet)
+			return andCardinality((RoaringSet) a, (RoaringSet) b);
+		if (a instanceof RoaringSet)
+			return count(b, a);
+		if (b instanceof RoaringSet)
+			return count(a, b);
+		// probe the smaller one
+		return a.size() < b.size() ? count(a, b) : count(b, a);
+	}
+
+	public static int orCardinality(Set<Integer> a, Set<Integer> b) {
+		return a.size() + b.size() - andCardinality(a, b);
+	}
+
+	public static int andNotCardinality(Set<Integer> a, Set<Integer> b) {
+		return a.size() - andCardinality(a, b);
+	}
+
+	/**
+	 * @return the number of elements of in which are part of test
+	 */
+	private static int count(Set<Integer> in, Set<Integer> test) {
+		int r = 0;
+		for (Integer v : in)
+			if (test.contains(v))
+				r++;
+		return r;
+	}
+
+	/**
+	 * intersection between an arbitrary set and a {@link RoaringSet}, if both are {@link RoaringSet}s the word
+	 * aligned version will be used else the elements of the other set are probed
+	 */
+	public static RoaringSet and(Set<Integer> a, Set<Integer> b) {
+		if (a instanceof RoaringSet && b instanceof RoaringSet)
+			return and((RoaringSet) a, (RoaringSet) b);
+		if (a instanceof RoaringSet)
+			return filter(b, a, true);
+		if (b instanceof RoaringSet)
+			return filter(a, b, true);
+		// probe the smaller one
+		return a.size() < b.size() ? filter(a, b, true) : filter(b, a, true);
+	}
+
+	public static RoaringSet or(Set<Integer> a, Set<Integer> b) {
+		if (a instanceof RoaringSet && b instanceof RoaringSet)
+			return or((RoaringSet) a, (RoaringSet) b);
+		RoaringSet r;
+		if (a instanceof RoaringSet) {
+			r = ((RoaringSet) a).copy();
+			r.addAll(b);
+		} else {
+			r = b instanceof RoaringSet ? ((RoaringSet) b).copy() : of(b);
+			r.addAll(a);
+		}
+		return r;
+	}
+
+	public static RoaringSet andNot(Set<Integer> a, Set<Integer> b) {
+		if (a instanceof RoaringSet && b instanceof RoaringSet)
+			return andNot((RoaringSet) a, (RoaringSet) b);
+		return filter(a, b, false);
+	}
+
+	/**
+	 * @return all values of in, which are (contained=true) or are not (contained=false) part of the given set
+	 */
+	private static RoaringSet filter(Set<Integer> in, Set<Integer> test, boolean contained) {
+		RoaringSet r = new RoaringSet();
+		if (test instanceof RoaringSet) {
+			RoaringSet t = (RoaringSet) test;
+			for (int v : in instanceof RoaringSet ? ((RoaringSet) in).toIntArray() : Ints.toArray(in))
+				if (t.contains(v) == contained)
+					r.add(v);
+		} else {
+			for (Integer v : in)
+				if (test.contains(v) == contained)
+					r.add(v);
+		}
+		return r;
+	}
+
+	/**
+	 * appends a container with a key larger than all existing ones, empty ones will be skipped
+	 */
+	void append(char key, RoaringContainer c) {
+		if (c.cardinality() == 0)
+			return;
+		if (used == keys.length) {
+			final int n = Math.max(4, used * 2);
+			keys = Arrays.copyOf(keys, n);
+			containers = Arrays.copyOf(containers, n);
+		}
+		keys[used] = key;
+		containers[used++] = c;
+		cardinality += c.cardinality();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Integer> c) {
+		if (c instanceof RoaringSet) {
+			RoaringSet r = or(this, (RoaringSet) c);
+			if (r.cardinality == cardinality)
+				return false;
+			this.keys = r.keys;
+			this.containers = r.containers;
+			this.used = r.used;
+			this.cardinality = r.cardinality;
+			return true;
+		}
+		return super.addAll(c);
+	}
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * k-way set operations, which combine any number of sets in a single pass instead of folding them pairwise
+ *
+ * {@link RoaringSet} inputs are combined container by container: dense containers are merged over their words, sparse
+ * ones over their sorted values. Other inputs are either converted via a sorted int array (union) or probed (intersection)
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class RoaringSets {
+	private static final Comparator<Set<Integer>> BY_SIZE = new Comparator<Set<Integer>>() {
+		@Override
+		public int compare(Set<Integer> o1, Set<Integer> o2) {
+			return o1.size() - o2.size();
+		}
+	};
+
+	private RoaringSets() {
+
+	}
+
+	/**
+	 * @param sets
+	 * @return the union of all given sets
+	 */
+	public static RoaringSet union(Collection<? extends Set<Integer>> sets) {
+		List<RoaringSet> bitmaps = new ArrayList<>(sets.size());
+		int others = 0;
+		for (Set<Integer> s : sets) {
+			if (s.isEmpty())
+				continue;
+			if (s instanceof RoaringSet)
+				bitmaps.add((RoaringSet) s);
+			else
+				others += s.size();
+		}
+		if (others > 0) // sparse inputs: collect, sort and compress them in one go
+			bitmaps.add(sortedUnion(sets, others));
+
+		switch (bitmaps.size()) {
+		case 0:
+			return new RoaringSet();
+		case 1:
+			return bitmaps.get(0).copy();
+		default:
+			return unionImpl(bitmaps);
+		}
+	}
+
+	private static RoaringSet sortedUnion(Collection<? extends Set<Integer>> sets, int size) {
+		int[] values = new int[size];
+		int i = 0;
+		for (Set<Integer> s : sets) {
+			if (s instanceof RoaringSet)
+				continue;
+			for (Integer v : s)
+				values[i++] = v.intValue();
+		}
+		Arrays.sort(values, 0, i);
+		return RoaringSet.ofSorted(values, i);
+	}
+
+	private static RoaringSet unionImpl(List<RoaringSet> sets) {
+		final int k = sets.size();
+		final int[] pos = new int[k];
+		final RoaringContainer[] act = new RoaringContainer[k];
+		RoaringSet r = new RoaringSet();
+		while (true) {
+			// smallest key of all inputs
+			int key = Integer.MAX_VALUE;
+			for (int i = 0; i < k; ++i) {
+				RoaringSet s = sets.get(i);
+				if (pos[i] < s.used)
+					key = Math.min(key, s.keys[pos[i]]);
+			}
+			if (key == Integer.MAX_VALUE) // all done
+				break;
+			int n = 0;
+			int total = 0;
+			boolean allArrays = true;
+			for (int i = 0; i < k; ++i) {
+				RoaringSet s = sets.get(i);
+				if (pos[i] < s.used && s.keys[pos[i]] == key) {
+					RoaringContainer c = s.containers[pos[i]++];
+					act[n++] = c;
+					total += c.cardinality();
+					allArrays &= c instanceof RoaringArrayContainer;
+				}
+			}
+			r.append((char) key, unionContainers(act, n, total, allArrays));
+		}
+		return r;
+	}
+
+	private static RoaringContainer unionContainers(RoaringContainer[] cs, int n, int total, boolean allArrays) {
+		if (n == 1)
+			return cs[0].copy();
+		if (allArrays && total <= RoaringContainer.MAX_ARRAY_SIZE) {
+			// sparse: concatenate sorted values and remove duplicates
+			char[] r = new char[total];
+			int c = 0;
+			for (int i = 0; i < n; ++i) {
+				RoaringArrayContainer a = (RoaringArrayContainer) cs[i];
+				System.arraycopy(a.content, 0, r, c, a.cardinality);
+				c += a.cardinality;
+			}
+			Arrays.sort(r, 0, c);
+			int u = 0;
+			for (int i = 0; i < c; ++i)
+				if (u == 0 || r[u - 1] != r[i])
+					r[u++] = r[i];
+			return new RoaringArrayContainer(r, u);
+		}
+		// dense: or all words at once
+		long[] words = new long[RoaringBitmapContainer.WORDS];
+		for (int i = 0; i < n; ++i) {
+			RoaringContainer c = cs[i];
+			if (c instanceof RoaringBitmapContainer) {
+				BitKernels.get().or(words, ((RoaringBitmapContainer) c).words, words, words.length);
+			} else {
+				RoaringArrayContainer a = (RoaringArrayContainer) c;
+				for (int j = 0; j < a.cardinality; ++j) {
+					final int v = a.content[j];
+					words[v >>> 6] |= 1L << v;
+				}
+			}
+		}
+		int card = BitKernels.get().popcount(words, words.length);
+		return new RoaringBitmapContainer(words, card).optimize();
+	}
+
+	/**
+	 * @param sets
+	 * @return the intersection of all given sets
+	 */
+	public static RoaringSet intersection(Collection<? extends Set<Integer>> sets) {
+		if (sets.isEmpty())
+			return new RoaringSet();
+		List<Set<Integer>> sorted = new ArrayList<>(sets);
+		// smallest first, limiting the candidates
+		Collections.sort(sorted, BY_SIZE);
+		if (sorted.get(0).isEmpty())
+			return new RoaringSet();
+		if (sorted.size() == 1)
+			return RoaringSet.wrap(sorted.get(0)).copy();
+
+		boolean allBitmaps = true;
+		for (Set<Integer> s : sorted)
+			allBitmaps &= s instanceof RoaringSet;
+		if (allBitmaps) {
+			List<RoaringSet> bitmaps = new ArrayList<>(sorted.size());
+			for (Set<Integer> s : sorted)
+				bitmaps.add((RoaringSet) s);
+			return intersectionImpl(bitmaps);
+		}
+		return probe(sorted);
+	}
+
+	/**
+	 * probe every element of the smallest set against all others
+	 */
+	private static RoaringSet probe(List<Set<Integer>> sorted) {
+		final Set<Integer> first = sorted.get(0);
+		final int k = sorted.size();
+		int[] values = new int[first.size()];
+		int c = 0;
+		outer: for (Integer v : first) {
+			for (int i = 1; i < k; ++i)
+				if (!sorted.get(i).contains(v))
+					continue outer;
+			values[c++] = v.intValue();
+		}
+		if (!(first instanceof RoaringSet)) // not in order
+			Arrays.sort(values, 0, c);
+		return RoaringSet.ofSorted(values, c);
+	}
+
+	private static RoaringSet intersectionImpl(List<RoaringSet> sets) {
+		final RoaringSet first = sets.get(0);
+		final int k = sets.size();
+		final int[] pos = new int[k];
+		final RoaringContainer[] act = new RoaringContainer[k];
+		RoaringSet r = new RoaringSet();
+		outer: for (int f = 0; f < first.used; ++f) {
+			final char key = first.keys[f];
+			act[0] = first.containers[f];
+			boolean allBitmaps = act[0] instanceof RoaringBitmapContainer;
+			for (int i = 1; i < k; ++i) {
+				RoaringSet s = sets.get(i);
+				int p = pos[i];
+				while (p < s.used && s.keys[p] < key)
+					p++;
+				pos[i] = p;
+				if (p >= s.used) // one input is exhausted, no more shared values possible
+					break outer;
+				if (s.keys[p] != key)
+					continue outer;
+				act[i] = s.containers[p];
+				allBitmaps &= act[i] instanceof RoaringBitmapContainer;
+			}
+			r.append(key, intersectContainers(act, k, allBitmaps));
+		}
+		return r;
+	}
+
+	private static RoaringContainer intersectContainers(RoaringContainer[] cs, int n, boolean allBitmaps) {
+		if (allBitmaps) {
+			// dense: and all words at once
+			long[] words = Arrays.copyOf(((RoaringBitmapContainer) cs[0]).words, RoaringBitmapContainer.WORDS);
+			int card = cs[0].cardinality();
+			for (int i = 1; i < n && card > 0; ++i)
+				card = BitKernels.get().and(words, ((RoaringBitmapContainer) cs[i]).words, words, words.length);
+			return new RoaringBitmapContainer(words, card).optimize();
+		}
+		// sparse: start with the smallest array container and probe the others
+		int smallest = -1;
+		for (int i = 0; i < n; ++i)
+			if (cs[i] instanceof RoaringArrayContainer
+					&& (smallest < 0 || cs[i].cardinality() < cs[smallest].cardinality()))
+				smallest = i;
+		RoaringArrayContainer base = (RoaringArrayContainer) cs[smallest];
+		char[] r = new char[base.cardinality];
+		int c = 0;
+		outer: for (int j = 0; j < base.cardinality; ++j) {
+			final char v = base.content[j];
+			for (int i = 0; i < n; ++i)
+				if (i != smallest && !cs[i].contains(v))
+					continue outer;
+			r[c++] = v;
+		}
+		return new RoaringArrayContainer(r, c);
+	}
+}
@@ -297,6 +297,17 @@ public abstract class ABands extends GLElement implements MultiSelectionManagerM
 		return r;
 	}
 
+	@Override
+	public int getSelectedCount(TypedSet ids, SelectionType type) {
+		if (ids.isEmpty())
+			return 0;
+		SelectionManager manager = getOrCreate(ids.getIdType());
+		Set<Integer> active = manager.getElements(type);
+		if (active.isEmpty())
+			return 0;
+		return ids.andCardinality(new TypedSet(active, ids.getIdType()));
+	}
+
 	@Override
 	public boolean isSelected(TypedID id, SelectionType type) {
 		SelectionManager manager = getOrCreate(id.getIdType());
@@ -23,7 +23,6 @@ import org.caleydo.core.data.selection.SelectionType;
 import org.caleydo.core.event.EventListenerManager.ListenTo;
 import org.caleydo.core.id.IDCategory;
 import org.caleydo.core.id.IDType;
-import org.caleydo.core.id.IIDTypeMapper;
 import org.caleydo.core.util.base.Labels;
 import org.caleydo.core.util.collection.Pair;
 import org.caleydo.core.util.color.Color;
@@ -45,6 +44,7 @@ import org.caleydo.core.view.opengl.picking.Pick;
 import org.caleydo.core.view.opengl.util.spline.TesselatedPolygons;
 import org.caleydo.view.domino.api.model.EDirection;
 import org.caleydo.view.domino.api.model.typed.MappingCaches;
+import org.caleydo.view.domino.api.model.typed.MappingTable;
 import org.caleydo.view.domino.api.model.typed.TypedGroupList;
 import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.internal.LinearBlock.ESortingMode;
@@ -61,7 +61,6 @@ import org.caleydo.view.domino.internal.dnd.ADragInfo;
 import org.caleydo.view.domino.internal.dnd.BlockDragInfo;
 import org.caleydo.view.domino.internal.event.HideNodeEvent;
 
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.Iterables;
@@ -1146,15 +1145,15 @@ public class Block extends GLElementContainer implements IGLLayout2, IPickingLis
 	}
 
 	public void addVisibleItems(IDCategory category, Set<Integer> ids, IDType target) {
-		LoadingCache<IDType, IIDTypeMapper<Integer, Integer>> cache = MappingCaches.create(null, target);
 		for (LinearBlock b : linearBlocks) {
 			if (category.isOfCategory(b.getIdType())) {
 				TypedGroupList bids = b.getData();
 				if (target.equals(bids.getIdType()))
 					ids.addAll(bids);
 				else {
-					Set<Integer> converted = cache.getUnchecked(bids.getIdType()).apply(bids);
-					ids.addAll(converted);
+					MappingTable m = MappingCaches.get(bids.getIdType(), target);
+					if (m != null)
+						ids.addAll(m.apply(bids));
 				}
 			}
 		}
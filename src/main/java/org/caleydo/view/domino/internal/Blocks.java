@@ -27,7 +27,7 @@ import org.caleydo.core.view.opengl.layout2.IGLElementContext;
 import org.caleydo.core.view.opengl.layout2.geom.Rect;
 import org.caleydo.core.view.opengl.layout2.layout.IGLLayout2;
 import org.caleydo.core.view.opengl.layout2.layout.IGLLayoutElement;
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 import org.caleydo.view.domino.internal.MiniMapCanvas.IHasMiniMap;
 import org.caleydo.view.domino.internal.dnd.DragElement;
 import org.caleydo.view.domino.internal.ui.AItem;
@@ -429,7 +429,7 @@ public class Blocks extends GLElementContainer implements ICallback<SelectionTyp
 	 */
 	public int getVisibleItemCount(IDCategory category) {
 		IDType primary = category.getPrimaryMappingType();
-		Set<Integer> ids = new BitSetSet();
+		Set<Integer> ids = new RoaringSet();
 		for (Block block : getBlocks())
 			block.addVisibleItems(category, ids, primary);
 		return ids.size();
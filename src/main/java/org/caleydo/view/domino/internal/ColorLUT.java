@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal;
+
+import org.caleydo.core.util.color.Color;
+import org.caleydo.view.domino.internal.prefs.MyPreferences;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+
+/**
+ * quantized lookup table of a linear color mapping from a min to a max color, storing shared {@link Color}
+ * instances, such that coloring a cell neither allocates nor queries the preferences
+ *
+ * the numerical mapping of the preferences is rebuilt on the next access after one of its preferences changed
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class ColorLUT {
+	public static final int SIZE = 4096;
+
+	private static volatile ColorLUT numerical;
+	private static volatile Boolean useNumerical;
+	private static volatile int version = 0;
+
+	static {
+		MyPreferences.prefs().addPropertyChangeListener(new IPropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+				String p = event.getProperty();
+				if ("numerical.color.min".equals(p) || "numerical.color.max".equals(p))
+					numerical = null;
+				else if ("matrix.color.usenumerical".equals(p))
+					useNumerical = null;
+				else
+					return;
+				version++;
+			}
+		});
+	}
+
+	private final Color[] colors = new Color[SIZE];
+
+	public ColorLUT(Color min, Color max) {
+		for (int i = 0; i < SIZE; ++i) {
+			// v0*(1-t)+v1*t
+			float a = i / (float) (SIZE - 1);
+			float ma = 1 - a;
+			colors[i] = new Color(min.r * ma + max.r * a, min.g * ma + max.g * a, min.b * ma + max.b * a, min.a
+					* ma + max.a * a);
+		}
+	}
+
+	/**
+	 * @return the lookup table of the numerical color mapping of the preferences
+	 */
+	public static ColorLUT numerical() {
+		ColorLUT l = numerical;
+		if (l == null)
+			numerical = l = new ColorLUT(MyPreferences.getNumericalMappingMinColor(),
+					MyPreferences.getNumericalMappingMaxColor());
+		return l;
+	}
+
+	/**
+	 * @return a counter incremented whenever the color mapping preferences change
+	 */
+	public static int version() {
+		return version;
+	}
+
+	/**
+	 * cached version of {@link MyPreferences#isUseNumericalColorMapping()}
+	 */
+	public static boolean isUseNumericalColorMapping() {
+		Boolean u = useNumerical;
+		if (u == null)
+			useNumerical = u = MyPreferences.isUseNumericalColorMapping();
+		return u.booleanValue();
+	}
+
+	private static int index(float v) {
+		if (v <= 0)
+			return 0;
+		if (v >= 1)
+			return SIZE - 1;
+		return (int) (v * (SIZE - 1) + 0.5f);
+	}
+
+	/**
+	 * @param v
+	 *            normalized value
+	 * @return the shared color of the given value, don't modify it
+	 */
+	public Color get(float v) {
+		if (Float.isNaN(v))
+			return Color.NOT_A_NUMBER_COLOR;
+		return colors[index(v)];
+	}
+
+	/**
+	 * @return the color packed as 0xRRGGBBAA
+	 */
+	public static int pack(Color c) {
+		return pack(c.r, c.g, c.b, c.a);
+	}
+
+	public static int pack(float r, float g, float b, float a) {
+		return (toByte(r) << 24) | (toByte(g) << 16) | (toByte(b) << 8) | toByte(a);
+	}
+
+	private static int toByte(float v) {
+		if (v <= 0)
+			return 0;
+		if (v >= 1)
+			return 255;
+		return (int) (v * 255 + 0.5f);
+	}
+}
@@ -6,7 +6,6 @@
 package org.caleydo.view.domino.internal;
 
 import org.caleydo.core.util.color.Color;
-import org.caleydo.view.domino.internal.prefs.MyPreferences;
 
 /**
  * @author Samuel Gratzl
@@ -26,12 +25,6 @@ public class Constants {
 	 * @return
 	 */
 	public static Color colorMapping(float a) {
-		if (Float.isNaN(a))
-			return Color.NOT_A_NUMBER_COLOR;
-		Color max = MyPreferences.getNumericalMappingMaxColor();
-		Color min = MyPreferences.getNumericalMappingMinColor();
-		// v0*(1-t)+v1*t
-		float ma = 1 - a;
-		return new Color(min.r * ma + max.r * a, min.g * ma + max.g * a, min.b * ma + max.b * a, min.a * ma + max.a * a);
+		return ColorLUT.numerical().get(a);
 	}
 }
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal;
+
+import org.caleydo.core.event.EventListenerManager.ListenTo;
+import org.caleydo.core.event.data.DataDomainUpdateEvent;
+import org.caleydo.core.event.data.RemoveDataDomainEvent;
+import org.caleydo.view.domino.api.model.typed.MappingCaches;
+import org.caleydo.view.domino.internal.band.JoinIndex;
+import org.caleydo.view.domino.internal.data.AValueMatrix;
+import org.caleydo.view.domino.internal.data.AggregatePyramid;
+import org.caleydo.view.domino.internal.data.HeatMapTiles;
+
+/**
+ * drops the shared caches derived from the data domains, their values and id mappings whenever a data domain is
+ * added, updated or removed
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public class DataCaches {
+	@ListenTo
+	private void on(DataDomainUpdateEvent event) {
+		invalidate();
+	}
+
+	@ListenTo
+	private void on(RemoveDataDomainEvent event) {
+		invalidate();
+	}
+
+	public static void invalidate() {
+		MappingCaches.invalidate();
+		JoinIndex.invalidateAll();
+		AValueMatrix.invalidateAll();
+		HeatMapTiles.invalidateAll();
+		AggregatePyramid.invalidateAll();
+	}
+}
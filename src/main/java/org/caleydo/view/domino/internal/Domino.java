@@ -92,6 +92,8 @@ public class Domino extends GLElementContainer implements IDropGLTarget, IPickin
 
 	@DeepScan
 	private final NodeSelections selections = new NodeSelections();
+	@DeepScan
+	private final DataCaches caches = new DataCaches();
 
 	/**
 	 *
@@ -383,6 +383,9 @@ public class LinearBlock extends AbstractCollection<Node> {
 	private void resortImpl(IMultiTypedCollection data) {
 		List<ITypedComparator> c = asComparators(dim.opposite());
 		this.data = TypedSets.sort(data, c.toArray(new ITypedComparator[0]));
+		// let the data derived from the previous order, e.g. aggregate pyramids, follow the new one
+		for (Node node : nodes)
+			node.getDataValues().onReordered(dim.opposite(), this.data.slice(node.getIdType(dim.opposite())));
 	}
 
 	public void update() {
@@ -9,8 +9,10 @@ import gleem.linalg.Vec2f;
 
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -51,13 +53,17 @@ import org.caleydo.core.view.opengl.layout2.manage.IGLElementMetaData;
 import org.caleydo.core.view.opengl.picking.IPickingListener;
 import org.caleydo.core.view.opengl.picking.Pick;
 import org.caleydo.view.domino.api.model.EDirection;
+import org.caleydo.view.domino.api.model.typed.ISortKeyComparator;
 import org.caleydo.view.domino.api.model.typed.ITypedComparator;
+import org.caleydo.view.domino.api.model.typed.SortKeys;
 import org.caleydo.view.domino.api.model.typed.TypedCollections;
 import org.caleydo.view.domino.api.model.typed.TypedGroupList;
 import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.api.model.typed.TypedList;
 import org.caleydo.view.domino.api.model.typed.TypedListGroup;
-import org.caleydo.view.domino.api.model.typed.TypedSetGroup;
+import org.caleydo.view.domino.api.model.typed.TypedSets;
+import org.caleydo.view.domino.api.model.typed.util.ConcatedList;
+import org.caleydo.view.domino.api.model.typed.util.KeySort;
 import org.caleydo.view.domino.internal.data.IDataValues;
 import org.caleydo.view.domino.internal.data.TransposedDataValues;
 import org.caleydo.view.domino.internal.dnd.DragElement;
@@ -138,8 +144,8 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 		this.visualizationType = origin == null ? null : origin.visualizationType;
 		this.data = data;
 		this.label = label;
-		this.dimUnderlying = dimGroups;
-		this.recUnderlying = recGroups;
+		this.dimUnderlying = TypedSets.intern(dimGroups);
+		this.recUnderlying = TypedSets.intern(recGroups);
 		if (origin != null)
 			copyScaleFactors(origin);
 		// guessShift(dimGroups.size(), recGroups.size());
@@ -792,6 +798,7 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 	}
 
 	public void setUnderlyingDataImpl(EDimension dim, TypedGroupSet data) {
+		data = TypedSets.intern(data);
 		if (dim.isDimension())
 			dimUnderlying = data;
 		else
@@ -988,8 +995,56 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 		return reverse ? -r : r;
 	}
 
+	/**
+	 * computes sort keys consistent with {@link #compare(EDimension, int, int, boolean)}, by determining the existence
+	 * and group of each id in a single pass and ranking just the values of the existing ids
+	 *
+	 * @param dim
+	 * @param ids
+	 * @param reverse
+	 * @return
+	 */
+	public int[] sortKeys(final EDimension dim, int[] ids, boolean reverse) {
+		final TypedGroupList other = getData(dim.opposite());
+		Comparator<Integer> byValue = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return data.compare(dim, o1, o2, other);
+			}
+		};
+		TypedGroupSet groups = getUnderlyingData(dim);
+		int[] keys;
+		if (groups.isEmpty()) {
+			keys = SortKeys.rank(ids, byValue);
+		} else {
+			final int n = ids.length;
+			final int missing = groups.getGroups().size(); // after all groups
+			int[] group = new int[n];
+			int[] existing = new int[n];
+			int e = 0;
+			for (int i = 0; i < n; ++i) {
+				int a = ids[i];
+				boolean has = a >= 0 && groups.contains(a);
+				group[i] = has ? indexOf(groups, a) : missing;
+				if (has)
+					existing[e++] = a;
+			}
+			// rank the values of the existing ids, missing ones are equal
+			int[] ranks = SortKeys.rank(Arrays.copyOf(existing, e), byValue);
+			int[] values = new int[n];
+			for (int i = 0, j = 0; i < n; ++i)
+				if (group[i] != missing)
+					values[i] = ranks[j++];
+			keys = KeySort.denseRank(new int[][] { group, values }, n);
+		}
+		if (reverse)
+			for (int i = 0; i < keys.length; ++i)
+				keys[i] = -keys[i];
+		return keys;
+	}
+
 	public ITypedComparator getComparator(final EDimension dim, final boolean reverse) {
-		return new ITypedComparator() {
+		return new ISortKeyComparator() {
 			@Override
 			public IDType getIdType() {
 				return getUnderlyingData(dim).getIdType();
@@ -999,6 +1054,11 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 			public int compare(Integer o1, Integer o2) {
 				return Node.this.compare(dim, o1, o2, reverse);
 			}
+
+			@Override
+			public int[] sortKeys(int[] ids) {
+				return Node.this.sortKeys(dim, ids, reverse);
+			}
 		};
 	}
 
@@ -1015,11 +1075,7 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 	 * @return
 	 */
 	private static int indexOf(TypedGroupSet groups, int a) {
-		List<TypedSetGroup> g = groups.getGroups();
-		for (int i = 0; i < g.size(); ++i)
-			if (g.get(i).contains(a))
-				return i;
-		return -1;
+		return groups.indexOfGroup(a);
 	}
 
 	/**
@@ -1074,6 +1130,7 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 		int offset = 0;
 		List<TypedListGroup> gropus2 = data.getGroups();
 		final List<GroupLocator> locators = new ArrayList<>(gropus2.size());
+		final int[] ends = new int[gropus2.size()];
 
 		for (int i = 0; i < gropus2.size(); ++i) {
 			int size = gropus2.get(i).size();
@@ -1086,16 +1143,15 @@ public class Node extends GLElementContainer implements IGLLayout2, ILabeled, ID
 			GroupLocator gl = new GroupLocator(new GLLocation(loffset, lsize), offset, size, GLLocation.shift(
 					loc, loffset));
 			offset += size;
+			ends[i] = offset;
 			locators.add(gl);
 		}
 		return new GLLocation.ALocator() {
 			@Override
 			public GLLocation apply(int dataIndex, boolean topLeft) {
-				for (GroupLocator loc : locators) {
-					if (loc.in(dataIndex)) {
-						return loc.apply(dataIndex, topLeft);
-					}
-				}
+				int i = ConcatedList.upperBound(ends, dataIndex);
+				if (i < locators.size())
+					return locators.get(i).apply(dataIndex, topLeft);
 				return GLLocation.UNKNOWN;
 			}
 
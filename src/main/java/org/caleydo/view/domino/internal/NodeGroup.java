@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal;
 
+import gleem.linalg.Vec2f;
+
 import java.util.Set;
 
 import org.caleydo.core.data.collection.EDimension;
@@ -37,6 +39,7 @@ import org.caleydo.view.domino.api.model.EDirection;
 import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.api.model.typed.TypedGroups;
 import org.caleydo.view.domino.api.model.typed.TypedListGroup;
+import org.caleydo.view.domino.internal.data.AggregatePyramid;
 import org.caleydo.view.domino.internal.data.IDataValues;
 import org.caleydo.view.domino.internal.dnd.ADragInfo;
 import org.caleydo.view.domino.internal.dnd.BlockDragInfo;
@@ -59,6 +62,10 @@ public class NodeGroup extends GLElementDecorator implements ILabeled, IDragGLSo
 
 	private final PickingBarrier barrier;
 	private boolean armed;
+	/**
+	 * the size the visualization was built for if it aggregates its data by pixel density
+	 */
+	private Vec2f aggregatedFor;
 
 	NodeGroup(Node parent) {
 		this.parent = parent;
@@ -71,6 +78,17 @@ public class NodeGroup extends GLElementDecorator implements ILabeled, IDragGLSo
 	@Override
 	protected void layoutContent(IGLLayoutElement content, float w, float h, int deltaTimeMs) {
 		content.setBounds(Node.BORDER, Node.BORDER, w - 2 * Node.BORDER, h - 2 * Node.BORDER);
+		if (aggregatedFor != null && isOtherDensity(w - 2 * Node.BORDER, h - 2 * Node.BORDER))
+			build();
+	}
+
+	/**
+	 * @return whether the given size needs another aggregation level than the one the visualization was built for
+	 */
+	private boolean isOtherDensity(float w, float h) {
+		return AggregatePyramid.shift(dimData.size(), w) != AggregatePyramid.shift(dimData.size(), aggregatedFor.x())
+				|| AggregatePyramid.shift(recData.size(), h) != AggregatePyramid.shift(recData.size(),
+						aggregatedFor.y());
 	}
 
 	@Override
@@ -96,11 +114,16 @@ public class NodeGroup extends GLElementDecorator implements ILabeled, IDragGLSo
 		boolean transpose = parent.isDependentTranspose();
 		if (!neighbors[0] && !neighbors[1] && !neighbors[2] && !neighbors[3])
 			transpose = false;
-		data.fill(b, dimData, recData, neighbors, transpose);
+		// the content size, empty if not yet laid out
+		final Vec2f size = getSize().minus(new Vec2f(2 * Node.BORDER, 2 * Node.BORDER));
+		size.set(Math.max(0, size.x()), Math.max(0, size.y()));
+		data.fill(b, dimData, recData, neighbors, transpose, size);
 		// if free high else medium
 		initContext(b, parent);
 
-		ImmutableList<GLElementSupplier> extensions = GLElementFactories.getExtensions(b.build(), "domino."
+		GLElementFactoryContext c = b.build();
+		aggregatedFor = c.is("domino.aggregatable") ? size : null;
+		ImmutableList<GLElementSupplier> extensions = GLElementFactories.getExtensions(c, "domino."
  + data.getExtensionID(), data);
 		GLElementFactorySwitcher s = new GLElementFactorySwitcher(extensions, ELazyiness.DESTROY);
 		parent.selectDefaultVisualization(s);
@@ -380,6 +403,7 @@ public class NodeGroup extends GLElementDecorator implements ILabeled, IDragGLSo
 		barrier.setContent(null);
 		this.dimData = null;
 		this.recData = null;
+		this.aggregatedFor = null;
 
 		Domino d = findDomino();
 		if (d == null)
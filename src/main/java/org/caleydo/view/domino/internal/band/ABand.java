@@ -613,7 +613,7 @@ public abstract class ABand implements ILabeled, IHasMiniMap {
 
 			for (SelectionType type : SELECTION_TYPES) {
 				final TypedSet d = this.type.select(sShared, tShared);
-				int se = host.getSelected(d, type).size();
+				int se = host.getSelectedCount(d, type);
 				if (se > 0) {
 					Color c = type.getColor();
 					List<Vec2f> p = new ArrayList<>(6);
@@ -12,7 +12,7 @@ import org.caleydo.core.util.collection.Pair;
 import org.caleydo.view.domino.api.model.EDirection;
 import org.caleydo.view.domino.api.model.typed.MultiTypedSet;
 import org.caleydo.view.domino.api.model.typed.TypedGroupList;
-import org.caleydo.view.domino.api.model.typed.TypedSets;
+import org.caleydo.view.domino.api.model.typed.TypedSet;
 import org.caleydo.view.domino.internal.INodeLocator;
 
 /**
@@ -25,7 +25,11 @@ public class BandFactory {
 			ShearedRect rb,
 			final INodeLocator sNodeLocator, final INodeLocator tNodeLocator, final EDimension sDim,
 			final EDimension tDim, ABandIdentifier id) {
-		MultiTypedSet shared = TypedSets.intersect(sData.asSet(), tData.asSet());
+		final TypedSet sSet = sData.asSet();
+		final TypedSet tSet = tData.asSet();
+		if (sSet.getIdType() == tSet.getIdType() && sSet.andCardinality(tSet) == 0) // nothing shared, skip the mapping
+			return null;
+		MultiTypedSet shared = JoinIndex.shared(sData, tData);
 		if (shared.isEmpty())
 			return null;
 		if (sDim == tDim) {
@@ -13,7 +13,6 @@ import gleem.linalg.Vec4f;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -29,19 +28,16 @@ import org.caleydo.view.domino.api.model.EDirection;
 import org.caleydo.view.domino.api.model.typed.MultiTypedSet;
 import org.caleydo.view.domino.api.model.typed.TypedCollections;
 import org.caleydo.view.domino.api.model.typed.TypedGroupList;
-import org.caleydo.view.domino.api.model.typed.TypedList;
 import org.caleydo.view.domino.api.model.typed.TypedListGroup;
 import org.caleydo.view.domino.api.model.typed.TypedSet;
+import org.caleydo.view.domino.api.model.typed.TypedSetExpr;
 import org.caleydo.view.domino.api.model.typed.TypedSets;
 import org.caleydo.view.domino.internal.Constants;
 import org.caleydo.view.domino.internal.INodeLocator;
 import org.caleydo.view.domino.internal.band.IBandHost.SourceTarget;
 
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.ImmutableMultimap.Builder;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
 
 /**
  * @author Samuel Gratzl
@@ -364,9 +360,9 @@ public class CrossBand extends ABand {
 				if (tset.isEmpty())
 					continue;
 
-				MultiTypedSet shared = TypedSets.intersect(sset, tset);
-				if (shared.isEmpty()) // nothing shared
+				if (TypedSetExpr.of(sset).and(tset).isEmpty()) // nothing shared, checked lazily
 					continue;
+				MultiTypedSet shared = TypedSets.intersect(sset, tset);
 
 				GLLocation tgroupLocation = locT(EBandMode.GROUPS, j);
 
@@ -440,10 +436,7 @@ public class CrossBand extends ABand {
 	@Override
 	protected List<? extends IBandRenderAble> computeDetailRoutes() {
 		List<IBandRenderAble> detailRoutes = new ArrayList<>();
-		TypedList s = shared.sliceList(sData.getIdType());
-		final Multimap<Integer, Integer> slookup = computeLookup(s);
-		TypedList t = shared.sliceList(tData.getIdType());
-		final Multimap<Integer, Integer> tlookup = computeLookup(tData);
+		final JoinIndex join = JoinIndex.of(shared, sData, tData);
 
 		Set<PointB> points = new HashSet<>();
 
@@ -452,34 +445,29 @@ public class CrossBand extends ABand {
 			if (sId.intValue() < 0) {
 				continue;
 			}
-			Collection<Integer> indices = slookup.get(sId);
-			if (indices.isEmpty()) {
+			if (join.isEmpty(i)) {
 				continue;
 			}
 			GLLocation slocation = locS(EBandMode.DETAIL, i);
 			if (!slocation.isDefined()) {
 				continue;
 			}
-			for (int sindex : indices) {
-				Integer tId = t.get(sindex);
-				Collection<Integer> tindices = tlookup.get(tId);
-				if (tindices.isEmpty())
+			for (int k = join.start(i); k < join.end(i); ++k) {
+				final int tindex = join.target(k);
+				GLLocation tlocation = locT(EBandMode.DETAIL, tindex);
+				if (!tlocation.isDefined())
 					continue;
-				for (int tindex : tindices) {
-					GLLocation tlocation = locT(EBandMode.DETAIL, tindex);
-					if (!tlocation.isDefined())
-						continue;
-					boolean merged = false;
-					for (PointB point : points) {
-						if (point.merge(slocation, tlocation, sId, tId)) {
-							merged = true;
-							break;
-						}
-					}
-					if (!merged) {
-						points.add(new PointB(slocation, tlocation, sId, tId));
+				Integer tId = tData.get(tindex);
+				boolean merged = false;
+				for (PointB point : points) {
+					if (point.merge(slocation, tlocation, sId, tId)) {
+						merged = true;
+						break;
 					}
 				}
+				if (!merged) {
+					points.add(new PointB(slocation, tlocation, sId, tId));
+				}
 			}
 
 		}
@@ -565,14 +553,6 @@ public class CrossBand extends ABand {
 		}
 	}
 
-	private static Multimap<Integer, Integer> computeLookup(List<Integer> s) {
-		Builder<Integer, Integer> b = ImmutableMultimap.builder();
-		for (int i = 0; i < s.size(); ++i) {
-			b.put(s.get(i), i);
-		}
-		return b.build();
-	}
-
 	private class Disc extends MosaicRect {
 		private final float xStart, yStart;
 
@@ -716,8 +696,8 @@ public class CrossBand extends ABand {
 			if (g.isPickingPass())
 				return;
 			for (SelectionType type : SELECTION_TYPES) {
-				int sS = host.getSelected(sShared, type).size();
-				int tS = host.getSelected(tShared, type).size();
+				int sS = host.getSelectedCount(sShared, type);
+				int tS = host.getSelectedCount(tShared, type);
 				if (sS > 0 && tS > 0) {
 					final Color c = type.getColor();
 					g.color(c.r, c.g, c.b, 0.5f);
@@ -746,8 +726,8 @@ public class CrossBand extends ABand {
 
 			if (!g.isPickingPass()) {
 				for (SelectionType type : Lists.reverse(SELECTION_TYPES)) {
-					int sS = host.getSelected(sShared, type).size();
-					int tS = host.getSelected(tShared, type).size();
+					int sS = host.getSelectedCount(sShared, type);
+					int tS = host.getSelectedCount(tShared, type);
 					if (sS > 0 && tS > 0) {
 						c = type.getColor();
 						if (type == SelectionType.MOUSE_OVER)
@@ -18,7 +18,7 @@ import org.caleydo.view.domino.api.model.typed.TypedSet;
  */
 public interface IBandHost {
 	/**
-	 * return the number of elements that are selected according to the current {@link SelectionType}
+	 * return the elements that are selected according to the current {@link SelectionType}
 	 * 
 	 * @param ids
 	 * @param type
@@ -26,6 +26,16 @@ public interface IBandHost {
 	 */
 	TypedSet getSelected(TypedSet ids, SelectionType type);
 
+	/**
+	 * return the number of elements that are selected according to the current {@link SelectionType}, without
+	 * materializing them
+	 *
+	 * @param ids
+	 * @param type
+	 * @return
+	 */
+	int getSelectedCount(TypedSet ids, SelectionType type);
+
 	boolean isSelected(TypedID id, SelectionType type);
 
 	BitSet isSelected(TypedList ids, SelectionType type);
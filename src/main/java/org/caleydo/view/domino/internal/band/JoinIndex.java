@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.band;
+
+import java.util.List;
+import java.util.Map;
+
+import org.caleydo.view.domino.api.model.typed.MultiTypedSet;
+import org.caleydo.view.domino.api.model.typed.TypedGroupList;
+import org.caleydo.view.domino.api.model.typed.TypedSets;
+import org.caleydo.view.domino.api.model.typed.util.KeySort;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * join index between the positions of two {@link TypedGroupList}s connected by a band, i.e. for each source position
+ * the target positions with a shared id, stored as compressed sparse rows: offsets plus target positions
+ *
+ * the shared ids and the join index are cached by the identity of both lists, such that they are reused across band
+ * updates till the data of either side or the mappings between them change
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class JoinIndex {
+	/**
+	 * source list -> target list -> entry, the entries must not reference the lists
+	 */
+	private static final Map<TypedGroupList, Map<TypedGroupList, Entry>> CACHE = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * source position i maps to the target positions targets[offsets[i], offsets[i+1])
+	 */
+	private final int[] offsets;
+	private final int[] targets;
+
+	private JoinIndex(int[] offsets, int[] targets) {
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	/**
+	 * @param sData
+	 * @param tData
+	 * @return the cached intersection of both lists
+	 */
+	static MultiTypedSet shared(TypedGroupList sData, TypedGroupList tData) {
+		Entry e = entry(sData, tData);
+		if (e.shared == null) {
+			Entry reverse = entry(tData, sData);
+			e.shared = reverse.shared != null ? reverse.shared : TypedSets.intersect(sData.asSet(), tData.asSet());
+		}
+		return e.shared;
+	}
+
+	/**
+	 * @param shared
+	 *            the intersection of both lists, see {@link #shared(TypedGroupList, TypedGroupList)}
+	 * @param sData
+	 * @param tData
+	 * @return the cached join index between the positions of both lists
+	 */
+	static JoinIndex of(MultiTypedSet shared, TypedGroupList sData, TypedGroupList tData) {
+		Entry e = entry(sData, tData);
+		if (e.index == null || e.shared != shared) {
+			e.shared = shared;
+			e.index = build(shared, sData, tData);
+		}
+		return e.index;
+	}
+
+	/**
+	 * drops all cached entries, e.g. after the mappings between the ids changed
+	 */
+	public static void invalidateAll() {
+		CACHE.clear();
+	}
+
+	private static Entry entry(TypedGroupList sData, TypedGroupList tData) {
+		Map<TypedGroupList, Entry> row = CACHE.get(sData);
+		if (row == null) {
+			row = new MapMaker().weakKeys().makeMap();
+			CACHE.put(sData, row);
+		}
+		Entry e = row.get(tData);
+		if (e == null) {
+			e = new Entry();
+			row.put(tData, e);
+		}
+		return e;
+	}
+
+	private static JoinIndex build(MultiTypedSet shared, TypedGroupList sData, TypedGroupList tData) {
+		final int[] sShared = toIntArray(shared.sliceList(sData.getIdType()));
+		final int[] tShared = toIntArray(shared.sliceList(tData.getIdType()));
+		final int[] tIds = toIntArray(tData);
+
+		// shared tuples by source id and target positions by target id, both stable
+		final int[] rows = KeySort.sortIndex(new int[][] { sShared }, sShared.length);
+		final int[] rowKeys = permute(sShared, rows);
+		final int[] positions = KeySort.sortIndex(new int[][] { tIds }, tIds.length);
+		final int[] positionKeys = permute(tIds, positions);
+
+		final int size = sData.size();
+		int[] offsets = new int[size + 1];
+		int[] targets = null;
+		for (int pass = 0; pass < 2; ++pass) { // count in the first pass, fill in the second one
+			if (pass == 1)
+				targets = new int[offsets[size]];
+			int k = 0;
+			for (int i = 0; i < size; ++i) {
+				offsets[i] = k;
+				final int sId = sData.get(i).intValue();
+				if (sId < 0)
+					continue;
+				for (int r = lowerBound(rowKeys, sId); r < rowKeys.length && rowKeys[r] == sId; ++r) {
+					final int tId = tShared[rows[r]];
+					for (int p = lowerBound(positionKeys, tId); p < positionKeys.length && positionKeys[p] == tId; ++p) {
+						if (targets != null)
+							targets[k] = positions[p];
+						k++;
+					}
+				}
+			}
+			offsets[size] = k;
+		}
+		return new JoinIndex(offsets, targets);
+	}
+
+	private static int[] toIntArray(List<Integer> ids) {
+		int[] r = new int[ids.size()];
+		int i = 0;
+		for (Integer id : ids)
+			r[i++] = id.intValue();
+		return r;
+	}
+
+	private static int[] permute(int[] values, int[] order) {
+		int[] r = new int[order.length];
+		for (int i = 0; i < order.length; ++i)
+			r[i] = values[order[i]];
+		return r;
+	}
+
+	private static int lowerBound(int[] sorted, int key) {
+		int lo = 0, hi = sorted.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] < key)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * @param source
+	 *            source position
+	 * @return the first index in {@link #target(int)} of the given source position
+	 */
+	int start(int source) {
+		return offsets[source];
+	}
+
+	/**
+	 * @param source
+	 * @return the end index (exclusive) in {@link #target(int)} of the given source position
+	 */
+	int end(int source) {
+		return offsets[source + 1];
+	}
+
+	boolean isEmpty(int source) {
+		return offsets[source] == offsets[source + 1];
+	}
+
+	/**
+	 * @param index
+	 * @return the target position at the given index
+	 */
+	int target(int index) {
+		return targets[index];
+	}
+
+	private static final class Entry {
+		private MultiTypedSet shared;
+		private JoinIndex index;
+	}
+}
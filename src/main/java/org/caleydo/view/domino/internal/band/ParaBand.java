@@ -14,7 +14,6 @@ import java.awt.Polygon;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -34,19 +33,16 @@ import org.caleydo.view.domino.api.model.EDirection;
 import org.caleydo.view.domino.api.model.typed.MultiTypedSet;
 import org.caleydo.view.domino.api.model.typed.TypedCollections;
 import org.caleydo.view.domino.api.model.typed.TypedGroupList;
-import org.caleydo.view.domino.api.model.typed.TypedList;
 import org.caleydo.view.domino.api.model.typed.TypedListGroup;
 import org.caleydo.view.domino.api.model.typed.TypedSet;
+import org.caleydo.view.domino.api.model.typed.TypedSetExpr;
 import org.caleydo.view.domino.api.model.typed.TypedSets;
 import org.caleydo.view.domino.internal.Constants;
 import org.caleydo.view.domino.internal.INodeLocator;
 import org.caleydo.view.domino.internal.band.IBandHost.SourceTarget;
 
 import com.google.common.collect.ArrayTable;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.ImmutableMultimap.Builder;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
 /**
  * @author Samuel Gratzl
@@ -206,9 +202,9 @@ public class ParaBand extends ABand {
 				if (tset.isEmpty())
 					continue;
 
-				MultiTypedSet shared = TypedSets.intersect(sset, tset);
-				if (shared.isEmpty()) // nothing shared
+				if (TypedSetExpr.of(sset).and(tset).isEmpty()) // nothing shared, checked lazily
 					continue;
+				MultiTypedSet shared = TypedSets.intersect(sset, tset);
 
 				GLLocation tgroupLocation = locT(EBandMode.GROUPS, j);
 				final double tFactor = tgroupLocation.getSize() / tgroup.size();
@@ -276,10 +272,7 @@ public class ParaBand extends ABand {
 	protected List<? extends IBandRenderAble> computeGroupDetailRoutes() {
 		List<IBandRenderAble> detailRoutes = new ArrayList<>();
 
-		TypedList s = shared.sliceList(sData.getIdType());
-		final Multimap<Integer, Integer> slookup = computeLookup(s);
-		TypedList t = shared.sliceList(tData.getIdType());
-		final Multimap<Integer, Integer> tlookup = computeLookup(tData);
+		final JoinIndex join = JoinIndex.of(shared, sData, tData);
 
 		Table<TypedListGroup, TypedListGroup, NavigableSet<LineAcc>> lines = ArrayTable.create(sData.getGroups(),
 				tData.getGroups());
@@ -295,8 +288,7 @@ public class ParaBand extends ABand {
 				if (sId.intValue() < 0) {
 					continue;
 				}
-				Collection<Integer> indices = slookup.get(sId);
-				if (indices.isEmpty()) { // not shared
+				if (join.isEmpty(i)) { // not shared
 					continue;
 				}
 				GLLocation slocation = locS(EBandMode.DETAIL, i);
@@ -305,28 +297,24 @@ public class ParaBand extends ABand {
 				}
 				Vec2f sloc = new Vec2f((float) slocation.getOffset(), (float) slocation.getOffset2());
 
-				for (int sindex : indices) {
-					Integer tId = t.get(sindex);
-					Collection<Integer> tindices = tlookup.get(tId);
-					if (tindices.isEmpty())
+				for (int k = join.start(i); k < join.end(i); ++k) {
+					final int tindex = join.target(k);
+					GLLocation tlocation = locT(EBandMode.DETAIL, tindex);
+					if (!tlocation.isDefined())
 						continue;
-					for (int tindex : tindices) {
-						GLLocation tlocation = locT(EBandMode.DETAIL, tindex);
-						if (!tlocation.isDefined())
-							continue;
-						Vec2f tloc = new Vec2f((float) tlocation.getOffset(), (float) tlocation.getOffset2());
-
-						TypedListGroup tgroup = tData.groupAt(tindex);
-
-						NavigableSet<LineAcc> stlines = row.get(tgroup);
-						if (stlines == null)
-							row.put(tgroup, stlines = new TreeSet<LineAcc>());
-
-						final LineAcc l = new LineAcc(sloc, tloc, sId, tId);
-						LineAcc m = stlines.ceiling(l);
-						if (m == null || !m.merge(sloc, tloc, sId, tId))
-							stlines.add(l);
-					}
+					Integer tId = tData.get(tindex);
+					Vec2f tloc = new Vec2f((float) tlocation.getOffset(), (float) tlocation.getOffset2());
+
+					TypedListGroup tgroup = tData.groupAt(tindex);
+
+					NavigableSet<LineAcc> stlines = row.get(tgroup);
+					if (stlines == null)
+						row.put(tgroup, stlines = new TreeSet<LineAcc>());
+
+					final LineAcc l = new LineAcc(sloc, tloc, sId, tId);
+					LineAcc m = stlines.ceiling(l);
+					if (m == null || !m.merge(sloc, tloc, sId, tId))
+						stlines.add(l);
 				}
 			}
 		}
@@ -379,10 +367,7 @@ public class ParaBand extends ABand {
 	protected List<? extends IBandRenderAble> computeDetailRoutes() {
 		List<IBandRenderAble> detailRoutes = new ArrayList<>();
 
-		TypedList s = shared.sliceList(sData.getIdType());
-		final Multimap<Integer, Integer> slookup = computeLookup(s);
-		TypedList t = shared.sliceList(tData.getIdType());
-		final Multimap<Integer, Integer> tlookup = computeLookup(tData);
+		final JoinIndex join = JoinIndex.of(shared, sData, tData);
 
 		NavigableSet<LineAcc> lines = new TreeSet<>();
 
@@ -391,8 +376,7 @@ public class ParaBand extends ABand {
 			if (sId.intValue() < 0) {
 				continue;
 			}
-			Collection<Integer> indices = slookup.get(sId);
-			if (indices.isEmpty()) {
+			if (join.isEmpty(i)) {
 				continue;
 			}
 			GLLocation slocation = locS(EBandMode.DETAIL, i);
@@ -400,22 +384,18 @@ public class ParaBand extends ABand {
 				continue;
 			}
 			Vec2f sloc = new Vec2f((float) slocation.getOffset(), (float) slocation.getOffset2());
-			for (int sindex : indices) {
-				Integer tId = t.get(sindex);
-				Collection<Integer> tindices = tlookup.get(tId);
-				if (tindices.isEmpty())
+			for (int k = join.start(i); k < join.end(i); ++k) {
+				final int tindex = join.target(k);
+				GLLocation tlocation = locT(EBandMode.DETAIL, tindex);
+				if (!tlocation.isDefined())
 					continue;
-				for (int tindex : tindices) {
-					GLLocation tlocation = locT(EBandMode.DETAIL, tindex);
-					if (!tlocation.isDefined())
-						continue;
-					Vec2f tloc = new Vec2f((float) tlocation.getOffset(), (float) tlocation.getOffset2());
+				Integer tId = tData.get(tindex);
+				Vec2f tloc = new Vec2f((float) tlocation.getOffset(), (float) tlocation.getOffset2());
 
-					final LineAcc l = new LineAcc(sloc, tloc, sId, tId);
-					LineAcc m = lines.ceiling(l);
-					if (m == null || !m.merge(sloc, tloc, sId, tId))
-						lines.add(l);
-				}
+				final LineAcc l = new LineAcc(sloc, tloc, sId, tId);
+				LineAcc m = lines.ceiling(l);
+				if (m == null || !m.merge(sloc, tloc, sId, tId))
+					lines.add(l);
 			}
 
 		}
@@ -511,14 +491,6 @@ public class ParaBand extends ABand {
 		}
 	}
 
-	private static Multimap<Integer, Integer> computeLookup(List<Integer> s) {
-		Builder<Integer, Integer> b = ImmutableMultimap.builder();
-		for (int i = 0; i < s.size(); ++i) {
-			b.put(s.get(i), i);
-		}
-		return b.build();
-	}
-
 	private class Band extends ARelation {
 		private final List<Vec2f> points;
 		private Polygon shape;
@@ -582,8 +554,8 @@ public class ParaBand extends ABand {
 				float th = horizontal ? points.get(4).y() - t0.y() : points.get(4).x() - t0.x();
 
 				for (SelectionType type : SELECTION_TYPES) {
-					int s = host.getSelected(sShared, type).size();
-					int t = host.getSelected(tShared, type).size();
+					int s = host.getSelectedCount(sShared, type);
+					int t = host.getSelectedCount(tShared, type);
 					if (s > 0 && t > 0) {
 						Color c = type.getColor();
 						g.color(c.r, c.g, c.b, c.a * alpha);
@@ -667,8 +639,8 @@ public class ParaBand extends ABand {
 			Color c = mode.getColor();
 			if (withSelection) {
 				for (SelectionType type : SELECTION_TYPES) {
-					int s = host.getSelected(sShared, type).size();
-					int t = host.getSelected(tShared, type).size();
+					int s = host.getSelectedCount(sShared, type);
+					int t = host.getSelectedCount(tShared, type);
 					if (s > 0 && t > 0) {
 						c = type.getColor();
 						break;
@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import org.caleydo.core.data.collection.EDimension;
 import org.caleydo.core.data.perspective.table.TablePerspective;
 import org.caleydo.core.data.perspective.variable.Perspective;
@@ -66,7 +68,8 @@ public abstract class A1DDataDomainValues extends ADataDomainDataValues implemen
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
 		EDimension dim = main;
 		TypedList data = main.select(dimData, recData);
 		boolean transposed = data.getIdType() == this.singleGroup.getIdType();
@@ -17,7 +17,9 @@ import org.caleydo.core.util.format.Formatter;
 import org.caleydo.core.util.function.Function2;
 import org.caleydo.core.view.opengl.layout2.manage.GLElementFactoryContext.Builder;
 import org.caleydo.view.domino.api.model.typed.ITypedCollection;
+import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.api.model.typed.TypedList;
+import org.caleydo.view.domino.internal.ColorLUT;
 
 import com.google.common.primitives.Floats;
 import com.jogamp.common.util.IntObjectHashMap;
@@ -33,8 +35,21 @@ public abstract class ADataDomainDataValues implements IDataValues, Function2<In
 	private final int dims;
 	private final int records;
 
-	private final IntObjectHashMap dimFullCompareCache = new IntObjectHashMap();
-	private final IntObjectHashMap recFullCompareCache = new IntObjectHashMap();
+	private final IntObjectHashMap colorCache = new IntObjectHashMap();
+
+	private final AggregateCache compareCache = new AggregateCache(new AggregateCache.IValues() {
+		@Override
+		public TypedGroupSet getDefaultGroups(EDimension dim) {
+			return ADataDomainDataValues.this.getDefaultGroups(dim);
+		}
+
+		@Override
+		public float getNormalized(EDimension dim, int a, int other) {
+			if (dim.isDimension())
+				return getNormalizedValue(a, other);
+			return getNormalizedValue(other, a);
+		}
+	});
 
 	private final Function2<Integer, Integer, String> cell2Label = new Function2<Integer, Integer, String>() {
 		@Override
@@ -93,12 +108,31 @@ public abstract class ADataDomainDataValues implements IDataValues, Function2<In
 	}
 
 	public float getNormalized(Integer dimensionID, Integer recordID) {
-		Table table = getTable();
-		if (dimensionID == null || dimensionID < 0 || dimensionID >= dims)
+		if (dimensionID == null || recordID == null)
+			return Float.NaN;
+		return getNormalizedValue(dimensionID.intValue(), recordID.intValue());
+	}
+
+	/**
+	 * unboxed version of {@link #getNormalized(Integer, Integer)} using the snapshot if available
+	 */
+	public float getNormalizedValue(int dimensionID, int recordID) {
+		if (dimensionID < 0 || dimensionID >= dims || recordID < 0 || recordID >= records)
 			return Float.NaN;
-		if (recordID == null || recordID < 0 || recordID >= records)
+		AValueMatrix m = getMatrix();
+		int index = m == null ? -1 : m.index(dimensionID, recordID);
+		if (index >= 0)
+			return m.getNormalized(index);
+		if (index == AValueMatrix.EMPTY)
 			return Float.NaN;
-		return table.getNormalizedValue(dimensionID, recordID);
+		return getTable().getNormalizedValue(dimensionID, recordID);
+	}
+
+	/**
+	 * @return the snapshot of the values or <code>null</code> if there is none
+	 */
+	AValueMatrix getMatrix() {
+		return null;
 	}
 
 	public IDType getIDType(EDimension dim) {
@@ -123,7 +157,21 @@ public abstract class ADataDomainDataValues implements IDataValues, Function2<In
 		// get value
 		float[] color = d.getTable().getColor(dimensionID, recordID);
 		// to a color
-		return new Color(color[0], color[1], color[2], 1.0f);
+		return toColor(color);
+	}
+
+	/**
+	 * shares the colors of the same quantized RGB values, a table uses just a few distinct colors
+	 */
+	private Color toColor(float[] rgb) {
+		final int key = ColorLUT.pack(rgb[0], rgb[1], rgb[2], 1.0f);
+		Color c = (Color) colorCache.get(key);
+		if (c != null)
+			return c;
+		c = new Color(rgb[0], rgb[1], rgb[2], 1.0f);
+		if (colorCache.size() < ColorLUT.SIZE)
+			colorCache.put(key, c);
+		return c;
 	}
 
 	static boolean isInvalid(Integer id) {
@@ -148,49 +196,52 @@ public abstract class ADataDomainDataValues implements IDataValues, Function2<In
 
 
 	private float getCached(EDimension dim, int a, ITypedCollection otherData) {
-		IntObjectHashMap cache = dim.select(dimFullCompareCache, recFullCompareCache);
-		int size = getDefaultGroups(dim.opposite()).size();
-		if (otherData.size() != size)
-			return sum(dim, a, otherData);
-		if (cache.containsKey(a))
-			return (Float) cache.get(a);
-		float sum = sum(dim, a, otherData);
-		cache.put(a, sum);
-		return sum;
-	}
-
-	private float sum(EDimension dim, int a, ITypedCollection otherData) {
-		// mean values
-		float a_sum = 0;
-		for (Integer other : otherData) {
-			a_sum += getNormalized(dim, a, other);
-		}
-		return a_sum;
+		return compareCache.get(dim, a, otherData);
 	}
 
 	private float getNormalized(EDimension dim, int a, Integer other) {
+		if (other == null)
+			return Float.NaN;
 		if (dim.isDimension())
-			return getNormalized(a, other);
-		return getNormalized(other, a);
+			return getNormalizedValue(a, other.intValue());
+		return getNormalizedValue(other.intValue(), a);
+	}
+
+	/**
+	 * @return whether the colors of {@link #apply(Integer, Integer)} just depend on the data and the {@link ColorLUT},
+	 *         such that they can be cached as {@link HeatMapTiles}, in contrast to the color mapper of the table
+	 */
+	protected boolean isColorCachable() {
+		return false;
 	}
 
 	/**
 	 * @param b
 	 * @param dimData
 	 * @param recData
+	 * @param cell2color
+	 *            the colors to use instead of the cell colors, called with (record, dimension), <code>null</code> for
+	 *            the cell colors
 	 */
-	protected void fillHeatMap(Builder b, TypedList dimData, TypedList recData) {
+	protected void fillHeatMap(Builder b, TypedList dimData, TypedList recData,
+			Function2<Integer, Integer, Color> cell2color) {
 		b.put("dimensions", dimData);
 		b.put("dimensions.idType", dimData.getIdType());
 		b.put("records", recData);
 		b.put("records.idType", recData.getIdType());
-		if (dimData.getIdType() != getIDType(EDimension.DIMENSION)) { // swapped
-			b.put(Function2.class, Functions2s.swap(this));
-			b.put("cell2color", Functions2s.swap(this));
+		final boolean swapped = dimData.getIdType() != getIDType(EDimension.DIMENSION);
+		if (cell2color != null)
+			cell2color = swapped ? Functions2s.swap(cell2color) : cell2color;
+		else {
+			cell2color = swapped ? Functions2s.swap(this) : this;
+			if (isColorCachable())
+				cell2color = HeatMapTiles.get(this, recData, dimData, cell2color);
+		}
+		b.put(Function2.class, cell2color);
+		b.put("cell2color", cell2color);
+		if (swapped) {
 			b.put("cell2label", Functions2s.swap(this.cell2Label));
 		} else {
-			b.put(Function2.class, this);
-			b.put("cell2color", this);
 			b.put("cell2label", this.cell2Label);
 		}
 	}
@@ -210,4 +261,9 @@ public abstract class ADataDomainDataValues implements IDataValues, Function2<In
 		if (selected)
 			EventPublisher.trigger(new DataSetSelectedEvent(d));
 	}
+
+	@Override
+	public void onReordered(EDimension dim, TypedList order) {
+
+	}
 }
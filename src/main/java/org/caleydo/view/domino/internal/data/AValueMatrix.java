@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.caleydo.core.data.perspective.table.TablePerspective;
+import org.caleydo.core.data.virtualarray.VirtualArray;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+/**
+ * snapshot of the normalized and raw values of a numerical {@link TablePerspective}, a row is a record and a column a
+ * dimension. The ids are resolved via offset tables.
+ *
+ * the snapshot is taken once per {@link TablePerspective} and shared, it is optional: perspectives with up to
+ * <code>org.caleydo.view.domino.dense.maxCells</code> cells (default 4M) are stored as a {@link DenseMatrix}, larger
+ * ones with up to <code>org.caleydo.view.domino.sparse.maxCells</code> cells (default 256M) as a {@link SparseMatrix}
+ * if at most dense.maxCells of their cells have a value, the others are read from the table. Even larger ones are
+ * mapped from a side-car file as a {@link MappedMatrix} unless <code>org.caleydo.view.domino.mapped</code> is false,
+ * till the file is written in the background they are read from the table, too. The normalized values are stored as
+ * {@link NormalizedValues}, optionally quantized, in which case just the normalized values are stored, see
+ * {@link #hasRaw()}
+ *
+ * all snapshots share a memory budget of <code>org.caleydo.view.domino.matrix.budget</code> bytes (default 128MB), the
+ * least recently used ones are evicted. Perspectives without a snapshot are remembered, too. Users hold a
+ * {@link Handle}, which resolves the snapshot again after it was evicted or invalidated by {@link #invalidateAll()} on
+ * a data domain update
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public abstract class AValueMatrix {
+	/**
+	 * index of a cell which is part of the snapshot but has no value, i.e. NaN
+	 */
+	static final int EMPTY = -2;
+
+	static final long MAX_DENSE_CELLS = Long.getLong("org.caleydo.view.domino.dense.maxCells", 1 << 22);
+	private static final long MAX_SPARSE_CELLS = Long.getLong("org.caleydo.view.domino.sparse.maxCells", 1 << 28);
+	private static final boolean MAPPED = !"false".equalsIgnoreCase(System
+			.getProperty("org.caleydo.view.domino.mapped"));
+
+	private static final long BUDGET = Long.getLong("org.caleydo.view.domino.matrix.budget", 128L << 20);
+
+	/**
+	 * incremented whenever a snapshot is removed, such that the {@link Handle}s resolve their snapshot again
+	 */
+	private static final AtomicInteger generation = new AtomicInteger();
+
+	// a single segment, such that the whole budget is available to a large snapshot
+	private static final Cache<TablePerspective, AValueMatrix> cache = CacheBuilder.newBuilder().weakKeys()
+			.concurrencyLevel(1).maximumWeight(BUDGET).weigher(new Weigher<TablePerspective, AValueMatrix>() {
+				@Override
+				public int weigh(TablePerspective key, AValueMatrix value) {
+					return (int) Math.min(Integer.MAX_VALUE, value.memory());
+				}
+			}).removalListener(new RemovalListener<TablePerspective, AValueMatrix>() {
+				@Override
+				public void onRemoval(RemovalNotification<TablePerspective, AValueMatrix> notification) {
+					generation.incrementAndGet();
+				}
+			}).build();
+
+	/**
+	 * marker of a perspective without a snapshot
+	 */
+	private static final AValueMatrix NONE = new AValueMatrix(new int[0], new int[0]) {
+		@Override
+		int index(int dimensionID, int recordID) {
+			return -1;
+		}
+
+		@Override
+		float getNormalized(int index) {
+			return Float.NaN;
+		}
+
+		@Override
+		float getRaw(int index) {
+			return Float.NaN;
+		}
+
+		@Override
+		long memory() {
+			return 0;
+		}
+	};
+
+	/**
+	 * dimension id to column, -1 if not part
+	 */
+	protected final int[] dimOffsets;
+	/**
+	 * record id to row, -1 if not part
+	 */
+	protected final int[] recOffsets;
+
+	AValueMatrix(int[] dimOffsets, int[] recOffsets) {
+		this.dimOffsets = dimOffsets;
+		this.recOffsets = recOffsets;
+	}
+
+	/**
+	 * @param t
+	 * @param isInteger
+	 *            whether the raw values are natural numbers using {@link Integer#MIN_VALUE} as NaN
+	 * @return the shared snapshot of the given perspective or <code>null</code> if it is too large and can't be mapped
+	 */
+	static AValueMatrix of(TablePerspective t, boolean isInteger) {
+		AValueMatrix m = cache.getIfPresent(t);
+		if (m != null)
+			return m == NONE ? null : m;
+		final int g = generation.get();
+		VirtualArray dims = t.getDimensionPerspective().getVirtualArray();
+		VirtualArray recs = t.getRecordPerspective().getVirtualArray();
+		final long cells = (long) dims.size() * recs.size();
+		if (cells <= MAX_DENSE_CELLS)
+			m = DenseMatrix.create(t.getDataDomain().getTable(), dims, recs, isInteger);
+		else if (cells <= MAX_SPARSE_CELLS)
+			m = SparseMatrix.create(t.getDataDomain().getTable(), dims, recs, isInteger, MAX_DENSE_CELLS);
+		else if (MAPPED)
+			m = MappedMatrix.create(t, dims, recs, isInteger);
+		if (m == null || m.memory() > BUDGET) { // wouldn't stay in the cache
+			cache.asMap().putIfAbsent(t, NONE); // don't try again
+			// a mapped file may have been completed in the meantime, try again then
+			if (generation.get() != g)
+				cache.asMap().remove(t, NONE);
+			return null;
+		}
+		AValueMatrix old = cache.asMap().putIfAbsent(t, m);
+		return old != null ? old : m;
+	}
+
+	/**
+	 * drops all snapshots, e.g. after the data or the normalization of a data domain changed
+	 */
+	public static void invalidateAll() {
+		MappedMatrix.forgetVerified();
+		cache.invalidateAll();
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * drops the snapshot of the given perspective, e.g. after its {@link MappedMatrix} file was written
+	 */
+	static void invalidate(TablePerspective t) {
+		cache.invalidate(t);
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * @param size
+	 *            number of ids
+	 * @return id to position, -1 if not part of the virtual array
+	 */
+	static int[] offsets(VirtualArray va, int size) {
+		int[] r = new int[size];
+		Arrays.fill(r, -1);
+		int next = 0;
+		for (Integer id : va) {
+			if (id == null || id < 0 || id >= size || r[id] >= 0)
+				continue;
+			r[id] = next++;
+		}
+		return r;
+	}
+
+	/**
+	 * @return the inverse of the given offsets, i.e. position to id
+	 */
+	static int[] inverse(int[] offsets) {
+		int n = 0;
+		for (int o : offsets)
+			if (o >= 0)
+				n++;
+		int[] r = new int[n];
+		for (int id = 0; id < offsets.length; ++id)
+			if (offsets[id] >= 0)
+				r[offsets[id]] = id;
+		return r;
+	}
+
+	/**
+	 * @return the column of the given dimension or -1 if not part
+	 */
+	final int column(int dimensionID) {
+		return dimensionID < 0 || dimensionID >= dimOffsets.length ? -1 : dimOffsets[dimensionID];
+	}
+
+	/**
+	 * @return the row of the given record or -1 if not part
+	 */
+	final int row(int recordID) {
+		return recordID < 0 || recordID >= recOffsets.length ? -1 : recOffsets[recordID];
+	}
+
+	/**
+	 * @return the index of the cell, -1 if not part of this snapshot or {@link #EMPTY} if it has no value
+	 */
+	abstract int index(int dimensionID, int recordID);
+
+	abstract float getNormalized(int index);
+
+	/**
+	 * @return whether {@link #getRaw(int)} is available, else the raw values have to be read from the table
+	 */
+	boolean hasRaw() {
+		return true;
+	}
+
+	abstract float getRaw(int index);
+
+	/**
+	 * @return the approximate heap memory of this snapshot in bytes
+	 */
+	abstract long memory();
+
+	final long offsetsMemory() {
+		return (dimOffsets.length + recOffsets.length) * 4L;
+	}
+
+	/**
+	 * converts a raw table value to a float
+	 */
+	static float toFloat(Object r, boolean isInteger) {
+		if (r instanceof Float)
+			return ((Float) r).floatValue();
+		if (r instanceof Integer && isInteger) {
+			int i = ((Integer) r).intValue();
+			if (i == Integer.MIN_VALUE)
+				return Float.NaN;
+			return i;
+		}
+		if (r instanceof Number)
+			return ((Number) r).floatValue();
+		return Float.NaN;
+	}
+
+	/**
+	 * the snapshot of a perspective as seen by one user, it doesn't keep an evicted snapshot alive and resolves it
+	 * again after any snapshot was removed
+	 *
+	 * @author Samuel Gratzl
+	 *
+	 */
+	static final class Handle {
+		private final TablePerspective t;
+		private final boolean isInteger;
+		private volatile WeakReference<AValueMatrix> ref;
+		private volatile int resolved = -1;
+
+		Handle(TablePerspective t, boolean isInteger) {
+			this.t = t;
+			this.isInteger = isInteger;
+		}
+
+		/**
+		 * @return the snapshot or <code>null</code> if there is none
+		 */
+		AValueMatrix get() {
+			final int g = generation.get();
+			WeakReference<AValueMatrix> r = ref;
+			AValueMatrix m = r == null ? null : r.get();
+			if (g == resolved && (r == null || m != null))
+				return m;
+			m = of(t, isInteger);
+			ref = m == null ? null : new WeakReference<>(m);
+			resolved = g;
+			return m;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+
+import org.caleydo.core.data.collection.EDimension;
+import org.caleydo.view.domino.api.model.typed.ITypedCollection;
+import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
+import org.caleydo.view.domino.api.model.typed.util.IntIndex;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * cache of the sums of the normalized values of a row over another collection, used for comparing 2D data values.
+ *
+ * the sums over the full other dimension are kept forever, the sums over a subset, e.g. of a limited or stratified
+ * block, are kept as long as the same (identical) subset is used, i.e. during a sort. Each row is summed at most once
+ * per subset
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class AggregateCache {
+	private final IValues values;
+	private final Entry[] full = new Entry[2];
+	private final Entry[] last = new Entry[2];
+	private final IntIndex[] rows = new IntIndex[2];
+
+	AggregateCache(IValues values) {
+		this.values = values;
+	}
+
+	/**
+	 * @param dim
+	 *            the dimension of a
+	 * @param a
+	 *            the row id
+	 * @param other
+	 *            the ids of the opposite dimension to sum over
+	 * @return the sum of the values of a over the other ids
+	 */
+	float get(EDimension dim, int a, ITypedCollection other) {
+		final int d = dim.ordinal();
+		IntIndex index = rows[d];
+		if (index == null) {
+			TypedGroupSet all = values.getDefaultGroups(dim);
+			index = rows[d] = IntIndex.of(Ints.toArray(all), 0, all.size());
+		}
+		final int i = index.indexOf(a);
+		if (i < 0)
+			return sum(dim, a, other);
+
+		Entry entry = select(dim, d, other);
+		if (entry.done.get(i))
+			return entry.sums[i];
+		float sum = sum(dim, a, other);
+		entry.sums[i] = sum;
+		entry.done.set(i);
+		return sum;
+	}
+
+	private Entry select(EDimension dim, int d, ITypedCollection other) {
+		final int n = values.getDefaultGroups(dim).size();
+		if (other.size() == values.getDefaultGroups(dim.opposite()).size()) {
+			// full, independent of the actual instance
+			if (full[d] == null)
+				full[d] = new Entry(null, n);
+			return full[d];
+		}
+		Entry entry = last[d];
+		if (entry == null || entry.other.get() != other)
+			last[d] = entry = new Entry(other, n);
+		return entry;
+	}
+
+	private float sum(EDimension dim, int a, ITypedCollection other) {
+		float sum = 0;
+		for (Integer o : other)
+			sum += values.getNormalized(dim, a, o.intValue());
+		return sum;
+	}
+
+	private static final class Entry {
+		private final WeakReference<ITypedCollection> other;
+		private final float[] sums;
+		private final BitSet done;
+
+		Entry(ITypedCollection other, int size) {
+			this.other = new WeakReference<>(other);
+			this.sums = new float[size];
+			this.done = new BitSet(size);
+		}
+	}
+
+	/**
+	 * the values to aggregate
+	 */
+	interface IValues {
+		TypedGroupSet getDefaultGroups(EDimension dim);
+
+		/**
+		 * @return the normalized value of the row a of the dimension dim and the given id of the opposite dimension
+		 */
+		float getNormalized(EDimension dim, int a, int other);
+	}
+}
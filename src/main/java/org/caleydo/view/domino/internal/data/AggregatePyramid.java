@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.caleydo.core.data.collection.EDimension;
+import org.caleydo.view.domino.api.model.typed.util.IntIndex;
+
+/**
+ * mipmap like pyramid of aggregates (mean, NaN count) of the normalized values of a sorted slice of a
+ * {@link ADataDomainDataValues}, rows are records and columns dimensions in the given order.
+ *
+ * a level with the shifts (r, c) aggregates bins of 2^r records x 2^c dimensions, such that rows and columns can be
+ * zoomed independently. A level is computed on first access from the finest cached level which divides it or else
+ * from the cells. A pyramid for a new order of the same ids is derived via {@link #reorder(EDimension, IntIndex)},
+ * recomputing just the bins whose members moved. All pyramids get stale by {@link #invalidateAll()} on a data domain
+ * update
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class AggregatePyramid {
+	/**
+	 * number of cached levels per pyramid
+	 */
+	private static final int MAX_LEVELS = 4;
+
+	private static final AtomicInteger version = new AtomicInteger();
+
+	private final int createdIn = version.get();
+	private final ADataDomainDataValues values;
+	private final int[] recs;
+	private final int[] dims;
+
+	private final Map<Integer, Level> levels = new LinkedHashMap<Integer, Level>(8, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Level> eldest) {
+			return size() > MAX_LEVELS;
+		}
+	};
+
+	AggregatePyramid(ADataDomainDataValues values, int[] recs, int[] dims) {
+		this.values = values;
+		this.recs = recs;
+		this.dims = dims;
+	}
+
+	/**
+	 * marks all pyramids as stale, e.g. after the data or the normalization of a data domain changed
+	 */
+	public static void invalidateAll() {
+		version.incrementAndGet();
+	}
+
+	boolean isStale() {
+		return createdIn != version.get();
+	}
+
+	/**
+	 * @param items
+	 *            number of items along an axis
+	 * @param pixels
+	 *            number of pixels available for them
+	 * @return the shift of the coarsest level which still has at least one bin per pixel, -1 if the pixels are not
+	 *         known yet
+	 */
+	public static int shift(int items, float pixels) {
+		if (!(pixels > 0))
+			return -1;
+		if (items <= pixels)
+			return 0;
+		return 31 - Integer.numberOfLeadingZeros((int) (items / pixels));
+	}
+
+	boolean isOf(int[] recs, int[] dims) {
+		return Arrays.equals(this.recs, recs) && Arrays.equals(this.dims, dims);
+	}
+
+	/**
+	 * @param rowShift
+	 *            2^rowShift records per bin
+	 * @param colShift
+	 *            2^colShift dimensions per bin
+	 * @return the level of the given shifts
+	 */
+	synchronized Level getLevel(int rowShift, int colShift) {
+		final Integer key = key(rowShift, colShift);
+		Level l = levels.get(key);
+		if (l != null)
+			return l;
+		l = new Level(rowShift, colShift, recs.length, dims.length);
+		Level finer = null;
+		for (Level c : levels.values())
+			if (c.rowShift <= rowShift && c.colShift <= colShift
+					&& (finer == null || c.rowShift + c.colShift > finer.rowShift + finer.colShift))
+				finer = c;
+		if (finer != null)
+			l.merge(finer);
+		else
+			fill(l, null, null, null);
+		levels.put(key, l);
+		return l;
+	}
+
+	private static Integer key(int rowShift, int colShift) {
+		return Integer.valueOf((rowShift << 16) | colShift);
+	}
+
+	/**
+	 * @param dim
+	 *            the dimension which changed its order
+	 * @param order
+	 *            the new order of the ids of this dimension, may contain more ids
+	 * @return a pyramid of the new order sharing the aggregates of all bins whose members are unchanged or
+	 *         <code>null</code> if the order is the same, not all ids of this pyramid are part of it or it is stale
+	 */
+	AggregatePyramid reorder(EDimension dim, IntIndex order) {
+		if (isStale())
+			return null;
+		final int[] ids = dim.select(dims, recs);
+		final int[] sorted = sort(ids, order);
+		if (sorted == null || Arrays.equals(ids, sorted))
+			return null;
+		AggregatePyramid p = dim.isDimension() ? new AggregatePyramid(values, recs, sorted) : new AggregatePyramid(
+				values, sorted, dims);
+		final boolean[] moved = new boolean[ids.length];
+		for (int i = 0; i < ids.length; ++i)
+			moved[i] = ids[i] != sorted[i];
+		synchronized (this) {
+			for (Map.Entry<Integer, Level> entry : levels.entrySet()) {
+				Level old = entry.getValue();
+				Level l = new Level(old.rowShift, old.colShift, recs.length, dims.length);
+				boolean[] dirty = dirty(moved, dim.select(old.colShift, old.rowShift), dim.select(l.cols, l.rows));
+				if (dim.isDimension())
+					p.fill(l, old, null, dirty);
+				else
+					p.fill(l, old, dirty, null);
+				p.levels.put(entry.getKey(), l);
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * @return the given ids in the given order or <code>null</code> if one is missing
+	 */
+	private static int[] sort(int[] ids, IntIndex order) {
+		long[] keys = new long[ids.length];
+		for (int i = 0; i < ids.length; ++i) {
+			final int pos = order.indexOf(ids[i]);
+			if (pos < 0)
+				return null;
+			keys[i] = ((long) pos << 32) | (ids[i] & 0xFFFFFFFFL);
+		}
+		Arrays.sort(keys);
+		int[] r = new int[ids.length];
+		for (int i = 0; i < r.length; ++i)
+			r[i] = (int) keys[i];
+		return r;
+	}
+
+	private static boolean[] dirty(boolean[] moved, int shift, int bins) {
+		boolean[] r = new boolean[bins];
+		for (int i = 0; i < moved.length; ++i)
+			if (moved[i])
+				r[i >> shift] = true;
+		return r;
+	}
+
+	/**
+	 * fills the given level from the cells, bins which are neither in a dirty row nor column are copied from the old
+	 * level if given
+	 */
+	private void fill(Level l, Level old, boolean[] dirtyRows, boolean[] dirtyCols) {
+		for (int i = 0; i < l.rows; ++i) {
+			final boolean dirtyRow = dirtyRows != null && dirtyRows[i];
+			for (int j = 0; j < l.cols; ++j) {
+				final int bin = i * l.cols + j;
+				if (old != null && !dirtyRow && (dirtyCols == null || !dirtyCols[j])) {
+					l.copy(bin, old, bin);
+					continue;
+				}
+				l.reset(bin);
+				for (int r = i << l.rowShift, rend = Math.min(r + (1 << l.rowShift), recs.length); r < rend; ++r)
+					for (int c = j << l.colShift, cend = Math.min(c + (1 << l.colShift), dims.length); c < cend; ++c)
+						l.add(bin, values.getNormalizedValue(dims[c], recs[r]));
+			}
+		}
+	}
+
+	/**
+	 * one level of the pyramid, bins are stored row-major
+	 *
+	 * @author Samuel Gratzl
+	 *
+	 */
+	static final class Level {
+		private final int rowShift;
+		private final int colShift;
+		private final int rows;
+		private final int cols;
+		private final float[] sum;
+		private final int[] count;
+		private final int[] nan;
+
+		Level(int rowShift, int colShift, int records, int dimensions) {
+			this.rowShift = rowShift;
+			this.colShift = colShift;
+			this.rows = bins(records, rowShift);
+			this.cols = bins(dimensions, colShift);
+			final int n = rows * cols;
+			this.sum = new float[n];
+			this.count = new int[n];
+			this.nan = new int[n];
+		}
+
+		private static int bins(int n, int shift) {
+			return Math.max(1, (n + (1 << shift) - 1) >> shift);
+		}
+
+		void reset(int bin) {
+			sum[bin] = 0;
+			count[bin] = 0;
+			nan[bin] = 0;
+		}
+
+		void add(int bin, float v) {
+			if (Float.isNaN(v)) {
+				nan[bin]++;
+				return;
+			}
+			sum[bin] += v;
+			count[bin]++;
+		}
+
+		void copy(int bin, Level from, int fbin) {
+			sum[bin] = from.sum[fbin];
+			count[bin] = from.count[fbin];
+			nan[bin] = from.nan[fbin];
+		}
+
+		/**
+		 * aggregates the given finer level into this one
+		 */
+		void merge(Level finer) {
+			final int dr = rowShift - finer.rowShift;
+			final int dc = colShift - finer.colShift;
+			for (int i = 0; i < finer.rows; ++i) {
+				final int row = (i >> dr) * cols;
+				for (int j = 0; j < finer.cols; ++j) {
+					final int bin = row + (j >> dc);
+					final int fbin = i * finer.cols + j;
+					sum[bin] += finer.sum[fbin];
+					count[bin] += finer.count[fbin];
+					nan[bin] += finer.nan[fbin];
+				}
+			}
+		}
+
+		/**
+		 * @param rec
+		 *            index of the record within the slice
+		 * @param dim
+		 *            index of the dimension within the slice
+		 * @return the mean of the bin containing the given cell, NaN if most of its cells are NaN
+		 */
+		float getMean(int rec, int dim) {
+			final int bin = (rec >> rowShift) * cols + (dim >> colShift);
+			final int c = count[bin];
+			if (c == 0 || nan[bin] > c)
+				return Float.NaN;
+			return sum[bin] / c;
+		}
+	}
+}
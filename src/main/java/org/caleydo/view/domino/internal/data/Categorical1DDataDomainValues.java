@@ -131,13 +131,9 @@ public class Categorical1DDataDomainValues extends A1DDataDomainValues {
 	}
 
 	public int indexOf(Integer id) {
-		int i = 0;
-		for (TypedSetGroup g : groups()) {
-			if (g.contains(id))
-				return i;
-			i++;
-		}
-		return -1;
+		if (id == null)
+			return -1;
+		return groups.indexOfGroup(id.intValue());
 	}
 
 	@Override
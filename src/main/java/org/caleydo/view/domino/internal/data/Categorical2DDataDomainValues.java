@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -55,8 +57,9 @@ public class Categorical2DDataDomainValues extends ADataDomainDataValues {
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
-		super.fillHeatMap(b, dimData, recData);
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
+		super.fillHeatMap(b, dimData, recData, null);
 	}
 	/**
 	 * @param t2
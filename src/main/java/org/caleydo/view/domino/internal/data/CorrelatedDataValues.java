@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import static org.caleydo.view.domino.internal.data.ADataDomainDataValues.isInvalid;
 
 import java.util.Collection;
@@ -13,23 +15,21 @@ import java.util.Collections;
 import org.caleydo.core.data.collection.EDimension;
 import org.caleydo.core.util.collection.Pair;
 import org.caleydo.core.util.color.Color;
+import org.caleydo.core.util.function.ArrayDoubleList;
 import org.caleydo.core.util.function.DoubleFunctions;
 import org.caleydo.core.util.function.Function2;
 import org.caleydo.core.util.function.IDoubleList;
 import org.caleydo.core.util.function.IInvertableDoubleFunction;
-import org.caleydo.core.util.function.MappedDoubleList;
 import org.caleydo.core.view.opengl.layout2.manage.GLElementFactoryContext.Builder;
 import org.caleydo.view.domino.api.model.typed.ITypedCollection;
 import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.api.model.typed.TypedList;
 import org.caleydo.view.domino.internal.Constants;
 
-import com.google.common.base.Function;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.primitives.Floats;
-import com.jogamp.common.util.IntObjectHashMap;
 
 /**
  * @author Samuel Gratzl
@@ -42,8 +42,17 @@ public class CorrelatedDataValues implements IDataValues, Function2<Integer, Int
 	private final IInvertableDoubleFunction normalize = DoubleFunctions.normalize(-1, 1);
 	private final TypedList other;
 
-	private final IntObjectHashMap dimFullCompareCache = new IntObjectHashMap();
-	private final IntObjectHashMap recFullCompareCache = new IntObjectHashMap();
+	private final AggregateCache compareCache = new AggregateCache(new AggregateCache.IValues() {
+		@Override
+		public TypedGroupSet getDefaultGroups(EDimension dim) {
+			return CorrelatedDataValues.this.getDefaultGroups(dim);
+		}
+
+		@Override
+		public float getNormalized(EDimension dim, int a, int other) {
+			return CorrelatedDataValues.this.getNormalized(a, other);
+		}
+	});
 
 	private final LoadingCache<Pair<Integer, Integer>, Double> cache = CacheBuilder.newBuilder().build(
 			new CacheLoader<Pair<Integer, Integer>, Double>() {
@@ -81,15 +90,14 @@ public class CorrelatedDataValues implements IDataValues, Function2<Integer, Int
 	 * @return
 	 */
 	private IDoubleList asList(final Integer id) {
-		return new MappedDoubleList<>(other, new Function<Integer, Double>() {
-			@Override
-			public Double apply(Integer input) {
-				Integer dimensionID = along.select(id, input);
-				Integer recordID = along.select(input, id);
-				Float f = wrappee.getRaw(dimensionID, recordID);
-				return f == null ? Double.NaN : f.doubleValue();
-			}
-		});
+		final int i = id.intValue();
+		final double[] values = new double[other.size()];
+		int j = 0;
+		for (Integer input : other) {
+			final int o = input.intValue();
+			values[j++] = along.isDimension() ? wrappee.getRawValue(i, o) : wrappee.getRawValue(o, i);
+		}
+		return new ArrayDoubleList(values);
 	}
 
 	protected Double compute(Integer first, Integer second) {
@@ -179,24 +187,7 @@ public class CorrelatedDataValues implements IDataValues, Function2<Integer, Int
 	}
 
 	private float getCached(EDimension dim, int a, ITypedCollection otherData) {
-		IntObjectHashMap cache = dim.select(dimFullCompareCache, recFullCompareCache);
-		int size = getDefaultGroups(dim.opposite()).size();
-		if (otherData.size() != size)
-			return sum(dim, a, otherData);
-		if (cache.containsKey(a))
-			return (Float) cache.get(a);
-		float sum = sum(dim, a, otherData);
-		cache.put(a, sum);
-		return sum;
-	}
-
-	private float sum(EDimension dim, int a, ITypedCollection otherData) {
-		// mean values
-		float a_sum = 0;
-		for (Integer other : otherData) {
-			a_sum += getNormalized(a, other);
-		}
-		return a_sum;
+		return compareCache.get(dim, a, otherData);
 	}
 
 	@Override
@@ -205,14 +196,16 @@ public class CorrelatedDataValues implements IDataValues, Function2<Integer, Int
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
 		b.put("id2double", toRaw);
 		b.put("dimensions", dimData);
 		b.put("dimensions.idType", dimData.getIdType());
 		b.put("records", recData);
 		b.put("records.idType", recData.getIdType());
-		b.put(Function2.class, this);
-		b.put("cell2color", this);
+		Function2<Integer, Integer, Color> cell2color = HeatMapTiles.get(this, recData, dimData, this);
+		b.put(Function2.class, cell2color);
+		b.put("cell2color", cell2color);
 		b.put("cell2label", this.cell2Label);
 	}
 
@@ -231,4 +224,9 @@ public class CorrelatedDataValues implements IDataValues, Function2<Integer, Int
 		wrappee.onSelectionChanged(selected);
 	}
 
+	@Override
+	public void onReordered(EDimension dim, TypedList order) {
+
+	}
+
 }
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import org.caleydo.core.data.collection.table.Table;
+import org.caleydo.core.data.virtualarray.VirtualArray;
+
+/**
+ * dense row-major {@link AValueMatrix}, such that a cell lookup is two array reads
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class DenseMatrix extends AValueMatrix {
+	private final int stride;
+	private final NormalizedValues normalized;
+	/**
+	 * <code>null</code> if not stored, see {@link NormalizedValues#isQuantized()}
+	 */
+	private final float[] raw;
+
+	private DenseMatrix(int[] dimOffsets, int[] recOffsets, NormalizedValues normalized, float[] raw) {
+		super(dimOffsets, recOffsets);
+		this.stride = inverse(dimOffsets).length;
+		this.normalized = normalized;
+		this.raw = raw;
+	}
+
+	static DenseMatrix create(Table table, VirtualArray dims, VirtualArray recs, boolean isInteger) {
+		int[] dimOffsets = offsets(dims, table.size());
+		int[] recOffsets = offsets(recs, table.depth());
+		final int[] dimIDs = inverse(dimOffsets);
+		final int[] recIDs = inverse(recOffsets);
+		final int stride = dimIDs.length;
+
+		NormalizedValues normalized = NormalizedValues.allocate(recIDs.length * stride);
+		float[] raw = NormalizedValues.isQuantized() ? null : new float[recIDs.length * stride];
+		for (int row = 0; row < recIDs.length; ++row) {
+			final int rec = recIDs[row];
+			for (int col = 0; col < stride; ++col) {
+				final int dim = dimIDs[col];
+				normalized.set(row * stride + col, table.getNormalizedValue(dim, rec));
+				if (raw != null)
+					raw[row * stride + col] = toFloat(table.getRaw(dim, rec), isInteger);
+			}
+		}
+		return new DenseMatrix(dimOffsets, recOffsets, normalized, raw);
+	}
+
+	@Override
+	int index(int dimensionID, int recordID) {
+		final int col = column(dimensionID);
+		final int row = row(recordID);
+		if (col < 0 || row < 0)
+			return -1;
+		return row * stride + col;
+	}
+
+	@Override
+	float getNormalized(int index) {
+		return normalized.get(index);
+	}
+
+	@Override
+	long memory() {
+		return offsetsMemory() + normalized.memory() + (raw == null ? 0 : raw.length * 4L);
+	}
+
+	@Override
+	boolean hasRaw() {
+		return raw != null;
+	}
+
+	@Override
+	float getRaw(int index) {
+		return raw[index];
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.caleydo.core.util.color.Color;
+import org.caleydo.core.util.function.Function2;
+import org.caleydo.view.domino.api.model.typed.TypedList;
+import org.caleydo.view.domino.api.model.typed.util.IntIndex;
+import org.caleydo.view.domino.internal.ColorLUT;
+
+import com.jogamp.common.util.IntObjectHashMap;
+
+/**
+ * memory budgeted cache of pre-colored heatmap tiles, i.e. the packed RGBA colors of a (records x dimensions) slice of
+ * a data values, row-major by record. Just colors which depend on the data and the {@link ColorLUT} only are cached.
+ *
+ * tiles are keyed by the identity of the data values and the content of the slice, such that a slice reappearing
+ * after undo/redo, transposing or switching visualizations isn't colored again. The least recently used tiles are
+ * evicted once the budget <code>org.caleydo.view.domino.tiles.budget</code> (bytes, default 64MB) is exceeded. All
+ * tiles are invalidated if the color mapping preferences change or by {@link #invalidateAll()} on a data domain update
+ *
+ * @author Samuel Gratzl
+ *
+ */
+public final class HeatMapTiles {
+	private static final long BUDGET = Long.getLong("org.caleydo.view.domino.tiles.budget", 64L << 20);
+
+	private static final LinkedHashMap<Key, Tile> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private static long used = 0;
+
+	private HeatMapTiles() {
+
+	}
+
+	/**
+	 * @param values
+	 *            the owner of the colors
+	 * @param recData
+	 * @param dimData
+	 * @param cell2color
+	 *            the colors of the slice, called with (record, dimension)
+	 * @return a cell2color function backed by a cached tile
+	 */
+	static Function2<Integer, Integer, Color> get(Object values, TypedList recData, TypedList dimData,
+			Function2<Integer, Integer, Color> cell2color) {
+		if ((long) recData.size() * dimData.size() * 4 > BUDGET / 4) // too large to be worth caching
+			return cell2color;
+		final Key key = new Key(values, recData, dimData, ColorLUT.version());
+		synchronized (cache) {
+			Tile tile = cache.get(key);
+			if (tile != null)
+				return tile;
+		}
+		// colored eagerly, such that the cached tile doesn't keep the data values alive
+		Tile tile = new Tile(recData, dimData, cell2color);
+		synchronized (cache) {
+			Tile old = cache.get(key);
+			if (old != null)
+				return old;
+			cache.put(key, tile);
+			used += tile.bytes();
+			evict();
+			return tile;
+		}
+	}
+
+	/**
+	 * drops all tiles, e.g. after the data or the normalization of a data domain changed
+	 */
+	public static void invalidateAll() {
+		synchronized (cache) {
+			cache.clear();
+			used = 0;
+		}
+	}
+
+	private static void evict() {
+		for (Iterator<Map.Entry<Key, Tile>> it = cache.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Key, Tile> entry = it.next();
+			if (used <= BUDGET && !entry.getKey().isStale())
+				continue;
+			used -= entry.getValue().bytes();
+			it.remove();
+		}
+	}
+
+	private static final class Key {
+		private final WeakReference<Object> values;
+		private final TypedList recData;
+		private final TypedList dimData;
+		private final int version;
+		private final int hash;
+
+		Key(Object values, TypedList recData, TypedList dimData, int version) {
+			this.values = new WeakReference<>(values);
+			this.recData = recData;
+			this.dimData = dimData;
+			this.version = version;
+			int h = System.identityHashCode(values);
+			h = 31 * h + recData.hashCode();
+			h = 31 * h + System.identityHashCode(recData.getIdType());
+			h = 31 * h + dimData.hashCode();
+			h = 31 * h + System.identityHashCode(dimData.getIdType());
+			this.hash = 31 * h + version;
+		}
+
+		boolean isStale() {
+			return values.get() == null || version != ColorLUT.version();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			Object v = values.get();
+			return hash == other.hash && v != null && v == other.values.get() && version == other.version
+					&& recData.getIdType() == other.recData.getIdType()
+					&& dimData.getIdType() == other.dimData.getIdType() && recData.equals(other.recData)
+					&& dimData.equals(other.dimData);
+		}
+	}
+
+	private static final class Tile implements Function2<Integer, Integer, Color> {
+		private final IntIndex recIndex;
+		private final IntIndex dimIndex;
+		private final int cols;
+		private final int[] rgba;
+		/**
+		 * packed color to the color instance of the slice
+		 */
+		private final IntObjectHashMap palette = new IntObjectHashMap();
+
+		Tile(TypedList recData, TypedList dimData, Function2<Integer, Integer, Color> cell2color) {
+			this.recIndex = IntIndex.of(recData);
+			this.dimIndex = IntIndex.of(dimData);
+			this.cols = dimData.size();
+			this.rgba = new int[recData.size() * cols];
+			int i = 0;
+			for (Integer rec : recData) {
+				for (Integer dim : dimData) {
+					Color c = cell2color.apply(rec, dim);
+					int packed = ColorLUT.pack(c);
+					rgba[i++] = packed;
+					if (!palette.containsKey(packed))
+						palette.put(packed, c);
+				}
+			}
+		}
+
+		long bytes() {
+			return rgba.length * 4L;
+		}
+
+		@Override
+		public Color apply(Integer recordID, Integer dimensionID) {
+			final int r = recordID == null ? -1 : recIndex.indexOf(recordID.intValue());
+			final int d = dimensionID == null ? -1 : dimIndex.indexOf(dimensionID.intValue());
+			if (r < 0 || d < 0) // not part of the slice
+				return Color.NOT_A_NUMBER_COLOR;
+			return (Color) palette.get(rgba[r * cols + d]);
+		}
+	}
+}
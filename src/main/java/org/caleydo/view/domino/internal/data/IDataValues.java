@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import java.util.Collection;
 
 import org.caleydo.core.data.collection.EDimension;
@@ -37,8 +39,12 @@ public interface IDataValues extends ILabeled, IColored, Predicate<String> {
 	 * @param dimData
 	 * @param recData
 	 * @param mediumTranspose TODO
+	 * @param size
+	 *            the size in pixels the data is shown with, used to aggregate large data, empty if not yet known and
+	 *            <code>null</code> to show every item
 	 */
-	void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose);
+	void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size);
 
 	Collection<String> getDefaultVisualization();
 
@@ -49,4 +55,14 @@ public interface IDataValues extends ILabeled, IColored, Predicate<String> {
 	boolean apply(String input);
 
 	void onSelectionChanged(boolean selected);
+
+	/**
+	 * the items of a dimension got a new order, e.g. after a resort, such that data derived from the previous order
+	 * can follow
+	 *
+	 * @param dim
+	 * @param order
+	 *            the new order of all items of this dimension
+	 */
+	void onReordered(EDimension dim, TypedList order);
 }
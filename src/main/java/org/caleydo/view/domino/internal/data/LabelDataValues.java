@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Objects;
@@ -65,7 +67,8 @@ public class LabelDataValues implements IDataValues {
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
 		TypedList g = TypedCollections.isInvalid(dimData.getIdType()) ? recData : dimData;
 		EDimension dim = EDimension.get(g == dimData);
 		b.put(TypedList.class, g);
@@ -104,6 +107,11 @@ public class LabelDataValues implements IDataValues {
 
 	}
 
+	@Override
+	public void onReordered(EDimension dim, TypedList order) {
+
+	}
+
 	public String get(int id) {
 		Set<String> r = mapper.apply(id);
 		if (r == null)
@@ -0,0 +1,479 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.caleydo.core.data.collection.table.Table;
+import org.caleydo.core.data.datadomain.ATableBasedDataDomain;
+import org.caleydo.core.data.perspective.table.TablePerspective;
+import org.caleydo.core.data.virtualarray.VirtualArray;
+import org.caleydo.core.io.DataSetDescription;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@link AValueMatrix} backed by a memory-mapped side-car file, such that tables larger than the heap can be shown:
+ * the pages are loaded on demand by the operating system and the values never become Java objects.
+ *
+ * the file is written in the background the first time a perspective is opened to the directory
+ * <code>org.caleydo.view.domino.mapped.dir</code> (default <code>${java.io.tmpdir}/caleydo-domino</code>) and reused
+ * afterwards, also by a resorted perspective of the same ids. A file is reused as long as the source file of the data
+ * domain, i.e. its path, size and modification time, and the data transformation are the same. Without a source file
+ * the checksum of all values is computed from the table once per session in the background and compared. The least
+ * recently used files are deleted if the directory exceeds <code>org.caleydo.view.domino.mapped.maxBytes</code> bytes
+ * (default 4GB).
+ *
+ * the normalized values are stored in the mode of {@link NormalizedValues}, the raw values just if not quantized. The
+ * columns are stored in blocks of {@value #BLOCK_BYTES} bytes, within a block column-major, first all normalized then
+ * all raw values. The rows and columns are resolved via the permutation tables stored in the header:
+ *
+ * <pre>
+ * int magic, table size, table depth, rows, columns, block columns, normalized bytes, with raw
+ * long source stamp, checksum
+ * int[rows] record ids, int[columns] dimension ids
+ * block*: normalized[block columns * rows], float[block columns * rows] raw
+ * </pre>
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class MappedMatrix extends AValueMatrix {
+	private static final int MAGIC = 0x444D4D33;
+	private static final int HEADER = 12;
+	private static final int BLOCK_BYTES = 1 << 26;
+	private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	private static final File DIR = new File(System.getProperty("org.caleydo.view.domino.mapped.dir", new File(
+			System.getProperty("java.io.tmpdir"), "caleydo-domino").getPath()));
+	private static final long MAX_BYTES = Long.getLong("org.caleydo.view.domino.mapped.maxBytes", 4L << 30);
+
+	/**
+	 * files currently written or verified
+	 */
+	private static final Set<File> writing = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+	/**
+	 * files without a source stamp whose checksum matched the table in this session
+	 */
+	private static final Set<File> verified = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+	private static final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+			.setDaemon(true).setNameFormat("domino-mapped-writer").build());
+
+	private final int rows;
+	private final int blockColumns;
+	private final int bytes;
+	private final long checksum;
+	private final ByteBuffer[] normalized;
+	/**
+	 * <code>null</code> if not stored
+	 */
+	private final FloatBuffer[] raw;
+
+	private MappedMatrix(int[] dimOffsets, int[] recOffsets, int rows, int blockColumns, int bytes, long checksum,
+			ByteBuffer[] normalized, FloatBuffer[] raw) {
+		super(dimOffsets, recOffsets);
+		this.rows = rows;
+		this.blockColumns = blockColumns;
+		this.bytes = bytes;
+		this.checksum = checksum;
+		this.normalized = normalized;
+		this.raw = raw;
+	}
+
+	/**
+	 * @return the matrix of the side-car file of the given perspective or <code>null</code> if it can't be mapped or
+	 *         is still written or verified, in the latter case the perspective is invalidated once the file is ready
+	 */
+	static MappedMatrix create(TablePerspective t, VirtualArray dims, VirtualArray recs, boolean isInteger) {
+		Table table = t.getDataDomain().getTable();
+		int[] dimOffsets = offsets(dims, table.size());
+		int[] recOffsets = offsets(recs, table.depth());
+		final int[] dimIDs = inverse(dimOffsets);
+		final int[] recIDs = inverse(recOffsets);
+		if ((long) dimIDs.length * recIDs.length > Integer.MAX_VALUE || recIDs.length == 0
+				|| dimIDs.length == 0)
+			return null;
+
+		File file = new File(DIR, toFileName(t, recIDs, dimIDs));
+		final long stamp = sourceStamp(t.getDataDomain());
+		try {
+			MappedMatrix m = open(file, table, dimOffsets, recOffsets, stamp, true);
+			if (m != null)
+				return m;
+		} catch (IOException e) {
+			// broken, use the table itself
+			return null;
+		}
+		write(t, file, stamp, dimOffsets, recOffsets, isInteger);
+		return null;
+	}
+
+	/**
+	 * forgets the verified checksums, e.g. after the data of a data domain changed
+	 */
+	static void forgetVerified() {
+		verified.clear();
+	}
+
+	private static String toFileName(TablePerspective t, int[] recIDs, int[] dimIDs) {
+		String name = t.getDataDomain().getDataDomainID() + "_" + t.getRecordPerspective().getPerspectiveID() + "_"
+				+ t.getDimensionPerspective().getPerspectiveID();
+		long h = contentHash(recIDs) * 31 + contentHash(dimIDs);
+		return name.replaceAll("[^\\w.-]", "_") + "_" + Long.toHexString(h) + ".bin";
+	}
+
+	/**
+	 * @return an order independent hash of the given ids, such that a resorted perspective finds the same file
+	 */
+	private static long contentHash(int[] ids) {
+		long h = ids.length;
+		for (int id : ids) {
+			long v = id * 0x9E3779B97F4A7C15L;
+			h += v ^ (v >>> 32);
+		}
+		return h;
+	}
+
+	/**
+	 * @return a hash of the path, size and modification time of the source file of the data domain and of the data
+	 *         transformation or 0 if the data domain wasn't loaded from a file
+	 */
+	private static long sourceStamp(ATableBasedDataDomain dataDomain) {
+		DataSetDescription desc = dataDomain.getDataSetDescription();
+		String path = desc == null ? null : desc.getDataSourcePath();
+		File source = path == null ? null : new File(path);
+		if (source == null || !source.isFile())
+			return 0;
+		long h = source.getAbsolutePath().hashCode();
+		h = h * 31 + source.length();
+		h = h * 31 + source.lastModified();
+		h = h * 31 + Objects.hashCode(dataDomain.getTable().getDefaultDataTransformation());
+		return h == 0 ? 1 : h;
+	}
+
+	/**
+	 * @return the contribution of a cell to the checksum, the checksum is the sum of all cells, such that it doesn't
+	 *         depend on the order of the cells
+	 */
+	private static long cellHash(int rec, int dim, float normalized, float raw) {
+		long h = rec * 0x9E3779B97F4A7C15L + dim;
+		h = h * 0xC2B2AE3D27D4EB4FL + Float.floatToIntBits(normalized);
+		h = h * 0xC2B2AE3D27D4EB4FL + Float.floatToIntBits(raw);
+		// murmur3 finalizer
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * @return the checksum of all values of the given cells, see {@link #cellHash(int, int, float, float)}
+	 */
+	private static long checksum(Table table, int[] recIDs, int[] dimIDs, boolean isInteger) {
+		long h = 0;
+		for (int dim : dimIDs)
+			for (int rec : recIDs)
+				h += cellHash(rec, dim, table.getNormalizedValue(dim, rec),
+						toFloat(table.getRaw(dim, rec), isInteger));
+		return h;
+	}
+
+	/**
+	 * @return the bytes of a cell, normalized and raw
+	 */
+	private static int cellBytes(int bytes, boolean withRaw) {
+		return bytes + (withRaw ? 4 : 0);
+	}
+
+	private static int blockColumns(int rows, int cellBytes) {
+		return (int) Math.max(1, BLOCK_BYTES / (rows * (long) cellBytes));
+	}
+
+	/**
+	 * @param dimOffsets
+	 *            the expected dimensions, the matching file may store them in another order
+	 * @param recOffsets
+	 *            the expected records
+	 * @param stamp
+	 *            the source stamp of the data domain, see {@link #sourceStamp(ATableBasedDataDomain)}
+	 * @param checkSource
+	 *            whether the file has to match the stamp or has to be verified in this session
+	 * @return the mapped file or <code>null</code> if missing or not matching
+	 */
+	private static MappedMatrix open(File file, Table table, int[] dimOffsets, int[] recOffsets, long stamp,
+			boolean checkSource) throws IOException {
+		if (!file.isFile())
+			return null;
+		try (RandomAccessFile f = new RandomAccessFile(file, "r"); FileChannel ch = f.getChannel()) {
+			if (ch.size() < HEADER * 4)
+				return null;
+			ByteBuffer header = ch.map(MapMode.READ_ONLY, 0, HEADER * 4).order(ORDER);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != table.size() || header.getInt(8) != table.depth())
+				return null;
+			final int rows = header.getInt(12);
+			final int cols = header.getInt(16);
+			final int blockColumns = header.getInt(20);
+			final int bytes = header.getInt(24);
+			final boolean withRaw = header.getInt(28) != 0;
+			final long fileStamp = header.getLong(32);
+			final long checksum = header.getLong(40);
+			if (checkSource && (stamp == 0 ? !verified.contains(file) : stamp != fileStamp))
+				return null;
+			// a file of another mode is rewritten
+			if (bytes != NormalizedValues.bytes() || withRaw == NormalizedValues.isQuantized())
+				return null;
+			final int cellBytes = cellBytes(bytes, withRaw);
+			if (rows <= 0 || cols <= 0 || blockColumns != blockColumns(rows, cellBytes))
+				return null;
+			final long dataStart = (HEADER + (long) rows + cols) * 4;
+			if (ch.size() != dataStart + (long) rows * cols * cellBytes)
+				return null;
+
+			IntBuffer ids = ch.map(MapMode.READ_ONLY, HEADER * 4, (long) (rows + cols) * 4).order(ORDER).asIntBuffer();
+			int[] fileRecOffsets = permutation(ids, 0, rows, recOffsets);
+			int[] fileDimOffsets = permutation(ids, rows, cols, dimOffsets);
+			if (fileRecOffsets == null || fileDimOffsets == null)
+				return null;
+
+			final int blocks = (cols + blockColumns - 1) / blockColumns;
+			ByteBuffer[] normalized = new ByteBuffer[blocks];
+			FloatBuffer[] raw = withRaw ? new FloatBuffer[blocks] : null;
+			for (int b = 0; b < blocks; ++b) {
+				final long cells = (long) Math.min(blockColumns, cols - b * blockColumns) * rows;
+				final long offset = dataStart + (long) b * blockColumns * rows * cellBytes;
+				// the mapping stays valid after closing the channel
+				normalized[b] = ch.map(MapMode.READ_ONLY, offset, cells * bytes).order(ORDER);
+				if (withRaw)
+					raw[b] = ch.map(MapMode.READ_ONLY, offset + cells * bytes, cells * 4).order(ORDER)
+							.asFloatBuffer();
+			}
+			file.setLastModified(System.currentTimeMillis()); // recently used
+			return new MappedMatrix(fileDimOffsets, fileRecOffsets, rows, blockColumns, bytes, checksum, normalized,
+					raw);
+		}
+	}
+
+	/**
+	 * @return the offsets of the stored ids if they are the same set as the expected ones else <code>null</code>
+	 */
+	private static int[] permutation(IntBuffer ids, int start, int n, int[] expected) {
+		int[] r = new int[expected.length];
+		Arrays.fill(r, -1);
+		int count = 0;
+		for (int i = 0; i < n; ++i) {
+			final int id = ids.get(start + i);
+			if (id < 0 || id >= r.length || expected[id] < 0 || r[id] >= 0)
+				return null;
+			r[id] = i;
+			count++;
+		}
+		for (int o : expected)
+			if (o >= 0)
+				count--;
+		return count == 0 ? r : null;
+	}
+
+	/**
+	 * verifies or writes the file in the background and invalidates the perspective afterwards, such that its
+	 * snapshot is resolved again
+	 */
+	private static void write(final TablePerspective t, final File file, final long stamp, final int[] dimOffsets,
+			final int[] recOffsets, final boolean isInteger) {
+		if (!writing.add(file)) // already in progress
+			return;
+		final Table table = t.getDataDomain().getTable();
+		writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				final int[] dimIDs = inverse(dimOffsets);
+				final int[] recIDs = inverse(recOffsets);
+				try {
+					if (stamp == 0 && isUpToDate(file, table, dimOffsets, recOffsets, recIDs, dimIDs, isInteger)) {
+						verified.add(file);
+					} else {
+						write(file, table, stamp, recIDs, dimIDs, isInteger);
+						if (stamp == 0) // written from the table
+							verified.add(file);
+						cleanUp(file);
+					}
+				} catch (IOException e) {
+					// not writable, stay with the table till the next invalidation
+					return;
+				} finally {
+					writing.remove(file);
+				}
+				AValueMatrix.invalidate(t);
+			}
+		});
+	}
+
+	/**
+	 * @return whether the existing file stores all values of the table, compared by their checksum
+	 */
+	private static boolean isUpToDate(File file, Table table, int[] dimOffsets, int[] recOffsets, int[] recIDs,
+			int[] dimIDs, boolean isInteger) throws IOException {
+		MappedMatrix m = open(file, table, dimOffsets, recOffsets, 0, false);
+		return m != null && m.checksum == checksum(table, recIDs, dimIDs, isInteger);
+	}
+
+	private static void write(File file, Table table, long stamp, int[] recIDs, int[] dimIDs, boolean isInteger)
+			throws IOException {
+		if (!DIR.isDirectory() && !DIR.mkdirs())
+			throw new IOException("can't create " + DIR);
+		final int rows = recIDs.length;
+		final int cols = dimIDs.length;
+		final int bytes = NormalizedValues.bytes();
+		final boolean withRaw = !NormalizedValues.isQuantized();
+		final int blockColumns = blockColumns(rows, cellBytes(bytes, withRaw));
+
+		File tmp = File.createTempFile(file.getName(), ".tmp", DIR);
+		try {
+			try (RandomAccessFile out = new RandomAccessFile(tmp, "rw"); FileChannel ch = out.getChannel()) {
+				ByteBuffer header = ByteBuffer.allocate((HEADER + rows + cols) * 4).order(ORDER);
+				header.putInt(MAGIC).putInt(table.size()).putInt(table.depth());
+				header.putInt(rows).putInt(cols).putInt(blockColumns).putInt(bytes).putInt(withRaw ? 1 : 0);
+				header.putLong(stamp).putLong(0); // checksum, filled in at the end
+				for (int rec : recIDs)
+					header.putInt(rec);
+				for (int dim : dimIDs)
+					header.putInt(dim);
+				writeFully(ch, header);
+
+				long checksum = 0;
+				final int cells = Math.min(blockColumns, cols) * rows;
+				ByteBuffer normalized = ByteBuffer.allocateDirect(cells * bytes).order(ORDER);
+				ByteBuffer raw = withRaw ? ByteBuffer.allocateDirect(cells * 4).order(ORDER) : null;
+				for (int c0 = 0; c0 < cols; c0 += blockColumns) {
+					normalized.clear();
+					if (withRaw)
+						raw.clear();
+					for (int col = c0, cend = Math.min(c0 + blockColumns, cols); col < cend; ++col) {
+						final int dim = dimIDs[col];
+						for (int rec : recIDs) {
+							final float n = table.getNormalizedValue(dim, rec);
+							final float r = toFloat(table.getRaw(dim, rec), isInteger);
+							checksum += cellHash(rec, dim, n, r);
+							NormalizedValues.put(normalized, bytes, n);
+							if (withRaw)
+								raw.putFloat(r);
+						}
+					}
+					writeFully(ch, normalized);
+					if (withRaw)
+						writeFully(ch, raw);
+				}
+				ByteBuffer c = ByteBuffer.allocate(8).order(ORDER);
+				c.putLong(checksum);
+				c.flip();
+				for (long pos = 40; c.hasRemaining();)
+					pos += ch.write(c, pos);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	private static void writeFully(FileChannel ch, ByteBuffer b) throws IOException {
+		b.flip();
+		while (b.hasRemaining())
+			ch.write(b);
+	}
+
+	/**
+	 * deletes the least recently used files till the directory is at most {@link #MAX_BYTES} large, a file which is
+	 * still mapped stays valid as long as it is mapped
+	 *
+	 * @param keep
+	 *            the file just written
+	 */
+	private static void cleanUp(File keep) {
+		File[] files = DIR.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File f) {
+				return f.isFile() && f.getName().endsWith(".bin");
+			}
+		});
+		if (files == null)
+			return;
+		long total = 0;
+		final long[] modified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for (int i = 0; i < files.length; ++i) {
+			total += files[i].length();
+			modified[i] = files[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(modified[a], modified[b]);
+			}
+		});
+		for (int i = 0; i < order.length && total > MAX_BYTES; ++i) {
+			File f = files[order[i]];
+			final long l = f.length();
+			if (!f.equals(keep) && f.delete())
+				total -= l;
+		}
+	}
+
+	@Override
+	int index(int dimensionID, int recordID) {
+		final int col = column(dimensionID);
+		final int row = row(recordID);
+		if (col < 0 || row < 0)
+			return -1;
+		return col * rows + row;
+	}
+
+	@Override
+	float getNormalized(int index) {
+		final int b = index / (blockColumns * rows);
+		return NormalizedValues.get(normalized[b], bytes, index - b * blockColumns * rows);
+	}
+
+	/**
+	 * the values are paged by the operating system, just the offsets are on the heap
+	 */
+	@Override
+	long memory() {
+		return offsetsMemory();
+	}
+
+	@Override
+	boolean hasRaw() {
+		return raw != null;
+	}
+
+	@Override
+	float getRaw(int index) {
+		final int b = index / (blockColumns * rows);
+		return raw[b].get(index - b * blockColumns * rows);
+	}
+}
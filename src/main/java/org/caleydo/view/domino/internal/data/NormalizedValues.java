@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * storage of the normalized values of an {@link AValueMatrix}.
+ *
+ * the mode is selected via the system property <code>org.caleydo.view.domino.normalized</code>: <code>float</code>
+ * (default) keeps full precision, <code>uint16</code> and <code>uint8</code> quantize values to [0,1] in 16 or 8 bit
+ * fixed point, which is enough for coloring and ordering while cutting the memory by 2x or 4x. In the quantized modes
+ * the raw values aren't part of the snapshot, but read from the table on demand, see {@link #isQuantized()}. The
+ * {@link MappedMatrix} files use the same encoding
+ *
+ * @author Samuel Gratzl
+ *
+ */
+abstract class NormalizedValues {
+	private static final String MODE = System.getProperty("org.caleydo.view.domino.normalized", "float");
+
+	/**
+	 * @return whether the normalized values are quantized, such that the snapshots don't store the raw values
+	 */
+	static boolean isQuantized() {
+		return bytes() < 4;
+	}
+
+	/**
+	 * @return the bytes per value of the configured mode
+	 */
+	static int bytes() {
+		if ("uint8".equalsIgnoreCase(MODE))
+			return 1;
+		if ("uint16".equalsIgnoreCase(MODE))
+			return 2;
+		return 4;
+	}
+
+	/**
+	 * appends a value to the buffer using the given bytes per value, see {@link #bytes()}
+	 */
+	static void put(ByteBuffer b, int bytes, float v) {
+		switch (bytes) {
+		case 1:
+			b.put((byte) UInt8.encode(v));
+			break;
+		case 2:
+			b.putShort((short) UInt16.encode(v));
+			break;
+		default:
+			b.putFloat(v);
+		}
+	}
+
+	/**
+	 * @return the index-th value of a buffer written by {@link #put(ByteBuffer, int, float)}
+	 */
+	static float get(ByteBuffer b, int bytes, int index) {
+		switch (bytes) {
+		case 1:
+			return UInt8.decode(b.get(index) & 0xFF);
+		case 2:
+			return UInt16.decode(b.getShort(index * 2) & 0xFFFF);
+		default:
+			return b.getFloat(index * 4);
+		}
+	}
+
+	/**
+	 * @param size
+	 * @return a new store of the configured mode
+	 */
+	static NormalizedValues allocate(int size) {
+		if ("uint8".equalsIgnoreCase(MODE))
+			return new UInt8(new byte[size]);
+		if ("uint16".equalsIgnoreCase(MODE))
+			return new UInt16(new short[size]);
+		return new Float32(new float[size]);
+	}
+
+	abstract float get(int index);
+
+	abstract void set(int index, float v);
+
+	/**
+	 * @return the memory of the values in bytes
+	 */
+	abstract long memory();
+
+	/**
+	 * @return a copy with the given size, see {@link Arrays#copyOf(float[], int)}
+	 */
+	abstract NormalizedValues copyOf(int size);
+
+	private static final class Float32 extends NormalizedValues {
+		private final float[] values;
+
+		Float32(float[] values) {
+			this.values = values;
+		}
+
+		@Override
+		float get(int index) {
+			return values[index];
+		}
+
+		@Override
+		void set(int index, float v) {
+			values[index] = v;
+		}
+
+		@Override
+		long memory() {
+			return values.length * 4L;
+		}
+
+		@Override
+		NormalizedValues copyOf(int size) {
+			return new Float32(Arrays.copyOf(values, size));
+		}
+	}
+
+	/**
+	 * 0..65534 for [0,1], 65535 for NaN
+	 */
+	private static final class UInt16 extends NormalizedValues {
+		private static final int NAN = 0xFFFF;
+		private static final float SCALE = NAN - 1;
+		private final short[] values;
+
+		UInt16(short[] values) {
+			this.values = values;
+		}
+
+		static int encode(float v) {
+			return Float.isNaN(v) ? NAN : quantize(v, SCALE);
+		}
+
+		static float decode(int v) {
+			return v == NAN ? Float.NaN : v / SCALE;
+		}
+
+		@Override
+		float get(int index) {
+			return decode(values[index] & 0xFFFF);
+		}
+
+		@Override
+		void set(int index, float v) {
+			values[index] = (short) encode(v);
+		}
+
+		@Override
+		long memory() {
+			return values.length * 2L;
+		}
+
+		@Override
+		NormalizedValues copyOf(int size) {
+			return new UInt16(Arrays.copyOf(values, size));
+		}
+	}
+
+	/**
+	 * 0..254 for [0,1], 255 for NaN
+	 */
+	private static final class UInt8 extends NormalizedValues {
+		private static final int NAN = 0xFF;
+		private static final float SCALE = NAN - 1;
+		private final byte[] values;
+
+		UInt8(byte[] values) {
+			this.values = values;
+		}
+
+		static int encode(float v) {
+			return Float.isNaN(v) ? NAN : quantize(v, SCALE);
+		}
+
+		static float decode(int v) {
+			return v == NAN ? Float.NaN : v / SCALE;
+		}
+
+		@Override
+		float get(int index) {
+			return decode(values[index] & 0xFF);
+		}
+
+		@Override
+		void set(int index, float v) {
+			values[index] = (byte) encode(v);
+		}
+
+		@Override
+		long memory() {
+			return values.length;
+		}
+
+		@Override
+		NormalizedValues copyOf(int size) {
+			return new UInt8(Arrays.copyOf(values, size));
+		}
+	}
+
+	/**
+	 * clamps v to [0,1] and maps it to 0..scale
+	 */
+	static int quantize(float v, float scale) {
+		if (v <= 0)
+			return 0;
+		if (v >= 1)
+			return (int) scale;
+		return (int) (v * scale + 0.5f);
+	}
+}
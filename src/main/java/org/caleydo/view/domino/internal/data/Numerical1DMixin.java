@@ -22,13 +22,11 @@ import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.api.model.typed.TypedList;
 import org.caleydo.view.domino.api.model.typed.TypedSet;
 import org.caleydo.view.domino.api.model.typed.TypedSetGroup;
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 import org.caleydo.view.domino.internal.Constants;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 
 /**
  * @author Samuel Gratzl
@@ -58,7 +56,7 @@ public class Numerical1DMixin {
 	}
 
 	public static TypedGroupSet extractGroups(Perspective p, INumerical1DContainer c) {
-		Set<Integer> invalid = new BitSetSet();
+		RoaringSet invalid = new RoaringSet();
 		TypedSet d = TypedSet.of(p.getVirtualArray());
 		for (Integer id : d) {
 			float v = c.getNormalized(id);
@@ -68,9 +66,9 @@ public class Numerical1DMixin {
 		if (invalid.isEmpty())
 			return TypedGroupSet.createUngrouped(d);
 
-		TypedSetGroup normal = new TypedSetGroup(new TypedSet(ImmutableSet.copyOf(Sets.difference(d, invalid)),
+		TypedSetGroup normal = new TypedSetGroup(new TypedSet(RoaringSet.andNot(d, invalid),
 				d.getIdType()), "Normal", c.getColor());
-		TypedSetGroup invalidG = new TypedSetGroup(new TypedSet(ImmutableSet.copyOf(invalid), d.getIdType()), "NaN",
+		TypedSetGroup invalidG = new TypedSetGroup(new TypedSet(invalid, d.getIdType()), "NaN",
 				Color.NOT_A_NUMBER_COLOR);
 		return new TypedGroupSet(normal, invalidG);
 	}
@@ -163,7 +161,7 @@ public class Numerical1DMixin {
 	 * @return
 	 */
 	private Set<Integer> even(TypedList data) {
-		BitSetSet s = new BitSetSet();
+		RoaringSet s = new RoaringSet();
 		for (int i = 0; i < data.size(); i += 2)
 			s.add(data.get(i));
 		return s;
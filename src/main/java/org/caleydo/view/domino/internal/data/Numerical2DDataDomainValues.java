@@ -5,8 +5,13 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.caleydo.core.data.collection.EDataClass;
@@ -22,21 +27,32 @@ import org.caleydo.view.domino.api.model.typed.TypedGroupSet;
 import org.caleydo.view.domino.api.model.typed.TypedList;
 import org.caleydo.view.domino.api.model.typed.TypedSet;
 import org.caleydo.view.domino.api.model.typed.TypedSetGroup;
-import org.caleydo.view.domino.api.model.typed.util.BitSetSet;
-import org.caleydo.view.domino.internal.Constants;
-import org.caleydo.view.domino.internal.prefs.MyPreferences;
+import org.caleydo.view.domino.api.model.typed.util.IntIndex;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+import org.caleydo.view.domino.internal.ColorLUT;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 
 /**
  * @author Samuel Gratzl
  *
  */
 public class Numerical2DDataDomainValues extends ADataDomainDataValues {
+	/**
+	 * minimal number of cells of a slice to aggregate it by pixel density
+	 */
+	private static final int AGGREGATE_THRESHOLD = 1 << 16;
+	private static final int MAX_PYRAMIDS = 4;
+
 	private final TypedGroupSet recGroups;
 	private final TypedGroupSet dimGroups;
 	private final boolean isInteger;
+	private final AValueMatrix.Handle matrix;
+	/**
+	 * the pyramids of the last aggregated slices, most recently used first
+	 */
+	private final List<AggregatePyramid> pyramids = new ArrayList<>(MAX_PYRAMIDS + 1);
 
 	private final Function2<Integer, Integer, Float> toRaw = new Function2<Integer, Integer, Float>() {
 
@@ -48,12 +64,13 @@ public class Numerical2DDataDomainValues extends ADataDomainDataValues {
 	/**
 	 * @param t
 	 */
-	public Numerical2DDataDomainValues(TablePerspective t) {
+	public Numerical2DDataDomainValues(final TablePerspective t) {
 		super(t.getDataDomain().getLabel(), t);
 		// Pair<TypedGroupSet, TypedGroupSet> r = extractGroups(t);
 		this.recGroups = TypedGroupSet.createUngrouped(TypedSet.of(t.getRecordPerspective().getVirtualArray()));
 		this.dimGroups = TypedGroupSet.createUngrouped(TypedSet.of(t.getDimensionPerspective().getVirtualArray()));
 		this.isInteger = DataSupportDefinitions.dataClass(EDataClass.NATURAL_NUMBER).apply(t);
+		this.matrix = new AValueMatrix.Handle(t, isInteger);
 	}
 
 	@Override
@@ -62,39 +79,131 @@ public class Numerical2DDataDomainValues extends ADataDomainDataValues {
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
-		super.fillHeatMap(b, dimData, recData);
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
+		final boolean swapped = dimData.getIdType() != getIDType(EDimension.DIMENSION);
+		Function2<Integer, Integer, Color> cell2color = null;
+		if (size != null && ColorLUT.isUseNumericalColorMapping()
+				&& (long) dimData.size() * recData.size() >= AGGREGATE_THRESHOLD) {
+			b.set("domino.aggregatable");
+			cell2color = aggregate(swapped ? dimData : recData, swapped ? recData : dimData, swapped ? size.x()
+					: size.y(), swapped ? size.y() : size.x());
+		}
+		super.fillHeatMap(b, dimData, recData, cell2color);
 
-		if (dimData.getIdType() != getIDType(EDimension.DIMENSION)) { // swapped
+		if (swapped) {
 			b.put("id2double", Functions2s.swap(toRaw));
 		} else
 			b.put("id2double", toRaw);
 	}
 
+	/**
+	 * @return the colors of the mean of the bins of the pyramid level matching the pixel density, called with
+	 *         (record, dimension), <code>null</code> if every cell has its own pixels
+	 */
+	private Function2<Integer, Integer, Color> aggregate(TypedList recData, TypedList dimData, float recPixels,
+			float dimPixels) {
+		final int rowShift = AggregatePyramid.shift(recData.size(), recPixels);
+		final int colShift = AggregatePyramid.shift(dimData.size(), dimPixels);
+		if (rowShift < 0 || colShift < 0) // not yet laid out, color lazily as it will be rebuilt
+			return this;
+		if (rowShift == 0 && colShift == 0)
+			return null;
+		final AggregatePyramid.Level level = getPyramid(Ints.toArray(recData), Ints.toArray(dimData)).getLevel(
+				rowShift, colShift);
+		final IntIndex recIndex = IntIndex.of(recData);
+		final IntIndex dimIndex = IntIndex.of(dimData);
+		return new Function2<Integer, Integer, Color>() {
+			@Override
+			public Color apply(Integer recordID, Integer dimensionID) {
+				final int r = isInvalid(recordID) ? -1 : recIndex.indexOf(recordID.intValue());
+				final int d = isInvalid(dimensionID) ? -1 : dimIndex.indexOf(dimensionID.intValue());
+				if (r < 0 || d < 0)
+					return Color.NOT_A_NUMBER_COLOR;
+				return ColorLUT.numerical().get(level.getMean(r, d));
+			}
+		};
+	}
+
+	private AggregatePyramid getPyramid(int[] recs, int[] dims) {
+		synchronized (pyramids) {
+			for (Iterator<AggregatePyramid> it = pyramids.iterator(); it.hasNext();) {
+				AggregatePyramid p = it.next();
+				if (p.isStale())
+					it.remove();
+				else if (p.isOf(recs, dims)) {
+					it.remove();
+					pyramids.add(0, p);
+					return p;
+				}
+			}
+			AggregatePyramid p = new AggregatePyramid(this, recs, dims);
+			add(p);
+			return p;
+		}
+	}
+
+	private void add(AggregatePyramid p) {
+		pyramids.add(0, p);
+		if (pyramids.size() > MAX_PYRAMIDS)
+			pyramids.remove(MAX_PYRAMIDS);
+	}
+
 	@Override
-	public Float getRaw(Integer dimensionID, Integer recordID) {
-		Object r = super.getRaw(dimensionID, recordID);
-		if (r instanceof Float)
-			return (Float) r;
-		if (r instanceof Integer && isInteger) {
-			Integer i = (Integer) r;
-			if (i.intValue() == Integer.MIN_VALUE)
-				return Float.NaN;
-			return i.floatValue();
+	public void onReordered(EDimension dim, TypedList order) {
+		if (order.getIdType() != getIDType(dim))
+			return;
+		synchronized (pyramids) {
+			if (pyramids.isEmpty())
+				return;
+			IntIndex index = IntIndex.of(order);
+			// derive the pyramids of the new order, such that the following fill finds them
+			for (AggregatePyramid p : ImmutableList.copyOf(pyramids)) {
+				AggregatePyramid r = p.reorder(dim, index);
+				if (r != null)
+					add(r);
+			}
 		}
-		if (r instanceof Number)
-			return ((Number) r).floatValue();
-		return Float.NaN;
+	}
+
+	@Override
+	AValueMatrix getMatrix() {
+		return matrix.get();
+	}
+
+	@Override
+	public Float getRaw(Integer dimensionID, Integer recordID) {
+		if (isInvalid(dimensionID) || isInvalid(recordID))
+			return Float.NaN;
+		return getRawValue(dimensionID.intValue(), recordID.intValue());
+	}
+
+	/**
+	 * unboxed version of {@link #getRaw(Integer, Integer)} using the snapshot if available
+	 */
+	public float getRawValue(int dimensionID, int recordID) {
+		AValueMatrix m = getMatrix();
+		int index = m == null ? -1 : m.index(dimensionID, recordID);
+		if (index >= 0 && m.hasRaw())
+			return m.getRaw(index);
+		if (index == AValueMatrix.EMPTY)
+			return Float.NaN;
+		return AValueMatrix.toFloat(super.getRaw(dimensionID, recordID), isInteger);
+	}
+
+	@Override
+	protected boolean isColorCachable() {
+		return ColorLUT.isUseNumericalColorMapping();
 	}
 
 	@Override
 	public Color apply(Integer recordID, Integer dimensionID) {
-		if (!MyPreferences.isUseNumericalColorMapping())
+		if (!ColorLUT.isUseNumericalColorMapping())
 			return super.apply(recordID, dimensionID);
 		if (isInvalid(recordID) || isInvalid(dimensionID))
 			return Color.NOT_A_NUMBER_COLOR;
-		float vs = getNormalized(dimensionID, recordID);
-		return Constants.colorMapping(vs);
+		float vs = getNormalizedValue(dimensionID.intValue(), recordID.intValue());
+		return ColorLUT.numerical().get(vs);
 	}
 
 	/**
@@ -102,8 +211,8 @@ public class Numerical2DDataDomainValues extends ADataDomainDataValues {
 	 * @return
 	 */
 	private Pair<TypedGroupSet, TypedGroupSet> extractGroups(TablePerspective t) {
-		Set<Integer> invalidDim = new BitSetSet();
-		Set<Integer> invalidRec = new BitSetSet();
+		Set<Integer> invalidDim = new RoaringSet();
+		Set<Integer> invalidRec = new RoaringSet();
 		TypedSet d = TypedSet.of(t.getDimensionPerspective().getVirtualArray());
 		TypedSet r = TypedSet.of(t.getRecordPerspective().getVirtualArray());
 		for (Integer dim : d) {
@@ -123,9 +232,9 @@ public class Numerical2DDataDomainValues extends ADataDomainDataValues {
 		if (invalid.isEmpty())
 			return TypedGroupSet.createUngrouped(d);
 
-		TypedSetGroup normal = new TypedSetGroup(new TypedSet(ImmutableSet.copyOf(Sets.difference(d, invalid)),
+		TypedSetGroup normal = new TypedSetGroup(new TypedSet(RoaringSet.andNot(d, invalid),
 				d.getIdType()), "Normal", getDataDomain().getColor());
-		TypedSetGroup invalidG = new TypedSetGroup(new TypedSet(ImmutableSet.copyOf(invalid), d.getIdType()), "NaN",
+		TypedSetGroup invalidG = new TypedSetGroup(new TypedSet(invalid, d.getIdType()), "NaN",
 				Color.NOT_A_NUMBER_COLOR);
 		return new TypedGroupSet(normal, invalidG);
 	}
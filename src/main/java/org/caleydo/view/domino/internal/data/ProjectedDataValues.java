@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import java.util.Collection;
 
 import org.caleydo.core.data.collection.EDimension;
@@ -60,12 +62,13 @@ public class ProjectedDataValues implements IDataValues, INumerical1DContainer,F
 		IntObjectHashMap r = new IntObjectHashMap(rows.size());
 		for (Integer id : rows) {
 			DoubleStatistics.Builder idb = DoubleStatistics.builder();
+			final int i = id.intValue();
 			if (along.isDimension()) {
 				for (Integer col : ids)
-					idb.add(wrappee.getRaw(col, id));
+					idb.add(wrappee.getRawValue(col.intValue(), i));
 			} else {
 				for (Integer row : ids)
-					idb.add(wrappee.getRaw(id, row));
+					idb.add(wrappee.getRawValue(i, row.intValue()));
 			}
 			float v = (float) proj.select(idb.build());
 			r.put(id, v);
@@ -118,7 +121,8 @@ public class ProjectedDataValues implements IDataValues, INumerical1DContainer,F
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
 		EDimension dim = along.opposite();
 		TypedList data = along.opposite().select(dimData, recData);
 		boolean transposed = data.getIdType() == this.singleGroup.getIdType();
@@ -153,6 +157,11 @@ public class ProjectedDataValues implements IDataValues, INumerical1DContainer,F
 		wrappee.onSelectionChanged(selected);
 	}
 
+	@Override
+	public void onReordered(EDimension dim, TypedList order) {
+
+	}
+
 	@Override
 	public Float getRaw(int id) {
 		Float d = (Float) this.data.get(id);
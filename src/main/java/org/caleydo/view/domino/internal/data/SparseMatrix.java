@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.caleydo.core.data.collection.table.Table;
+import org.caleydo.core.data.virtualarray.VirtualArray;
+
+/**
+ * compressed sparse row (CSR) {@link AValueMatrix} of a mostly empty table: just the cells with a value are stored,
+ * sorted by row and column, all others are {@link #EMPTY}
+ *
+ * @author Samuel Gratzl
+ *
+ */
+final class SparseMatrix extends AValueMatrix {
+	/**
+	 * number of random cells to estimate the density of a table
+	 */
+	private static final int SAMPLES = 4096;
+
+	/**
+	 * row to the index of its first entry, length rows + 1
+	 */
+	private final int[] rowStarts;
+	/**
+	 * entry to its column
+	 */
+	private final int[] columns;
+	private final NormalizedValues normalized;
+	/**
+	 * <code>null</code> if not stored, see {@link NormalizedValues#isQuantized()}
+	 */
+	private final float[] raw;
+
+	private SparseMatrix(int[] dimOffsets, int[] recOffsets, int[] rowStarts, int[] columns,
+			NormalizedValues normalized, float[] raw) {
+		super(dimOffsets, recOffsets);
+		this.rowStarts = rowStarts;
+		this.columns = columns;
+		this.normalized = normalized;
+		this.raw = raw;
+	}
+
+	/**
+	 * @param maxValues
+	 *            maximal number of cells with a value
+	 * @return the sparse matrix or <code>null</code> if more than maxValues cells have a value, which is estimated
+	 *         from a sample first
+	 */
+	static SparseMatrix create(Table table, VirtualArray dims, VirtualArray recs, boolean isInteger, long maxValues) {
+		int[] dimOffsets = offsets(dims, table.size());
+		int[] recOffsets = offsets(recs, table.depth());
+		final int[] dimIDs = inverse(dimOffsets);
+		final int[] recIDs = inverse(recOffsets);
+		if (estimateValues(table, dimIDs, recIDs, isInteger) > maxValues)
+			return null;
+
+		int[] rowStarts = new int[recIDs.length + 1];
+		int[] columns = new int[1024];
+		NormalizedValues normalized = NormalizedValues.allocate(1024);
+		final boolean withRaw = !NormalizedValues.isQuantized();
+		float[] raw = withRaw ? new float[1024] : null;
+		int n = 0;
+		for (int row = 0; row < recIDs.length; ++row) {
+			rowStarts[row] = n;
+			final int rec = recIDs[row];
+			for (int col = 0; col < dimIDs.length; ++col) {
+				final int dim = dimIDs[col];
+				final float r = toFloat(table.getRaw(dim, rec), isInteger);
+				final float v = table.getNormalizedValue(dim, rec);
+				if (Float.isNaN(r) && Float.isNaN(v))
+					continue;
+				if (n >= maxValues)
+					return null;
+				if (n == columns.length) {
+					final int l = (int) Math.min(maxValues, n * 2L);
+					columns = Arrays.copyOf(columns, l);
+					normalized = normalized.copyOf(l);
+					if (withRaw)
+						raw = Arrays.copyOf(raw, l);
+				}
+				columns[n] = col;
+				normalized.set(n, v);
+				if (withRaw)
+					raw[n] = r;
+				n++;
+			}
+		}
+		rowStarts[recIDs.length] = n;
+		return new SparseMatrix(dimOffsets, recOffsets, rowStarts, Arrays.copyOf(columns, n), normalized.copyOf(n),
+				withRaw ? Arrays.copyOf(raw, n) : null);
+	}
+
+	/**
+	 * @return the estimated number of cells with a value based on {@link #SAMPLES} random cells
+	 */
+	private static long estimateValues(Table table, int[] dimIDs, int[] recIDs, boolean isInteger) {
+		final long cells = (long) dimIDs.length * recIDs.length;
+		if (cells <= SAMPLES * 4L) // just scan it
+			return 0;
+		Random r = new Random(cells); // reproducible
+		int values = 0;
+		for (int i = 0; i < SAMPLES; ++i) {
+			final int dim = dimIDs[r.nextInt(dimIDs.length)];
+			final int rec = recIDs[r.nextInt(recIDs.length)];
+			if (!Float.isNaN(toFloat(table.getRaw(dim, rec), isInteger))
+					|| !Float.isNaN(table.getNormalizedValue(dim, rec)))
+				values++;
+		}
+		return cells * values / SAMPLES;
+	}
+
+	@Override
+	int index(int dimensionID, int recordID) {
+		final int col = column(dimensionID);
+		final int row = row(recordID);
+		if (col < 0 || row < 0)
+			return -1;
+		int i = Arrays.binarySearch(columns, rowStarts[row], rowStarts[row + 1], col);
+		return i < 0 ? EMPTY : i;
+	}
+
+	@Override
+	float getNormalized(int index) {
+		return normalized.get(index);
+	}
+
+	@Override
+	long memory() {
+		return offsetsMemory() + (rowStarts.length + columns.length + (raw == null ? 0 : raw.length)) * 4L
+				+ normalized.memory();
+	}
+
+	@Override
+	boolean hasRaw() {
+		return raw != null;
+	}
+
+	@Override
+	float getRaw(int index) {
+		return raw[index];
+	}
+}
@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -83,7 +85,8 @@ public class StratificationDataValue implements IDataValues, Function<Integer, C
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
 		final boolean swapped = dimData.getIdType() != getDefaultGroups(EDimension.DIMENSION).getIdType();
 
 		final EDimension dim = swapped ? main.opposite() : main;
@@ -158,21 +161,16 @@ public class StratificationDataValue implements IDataValues, Function<Integer, C
 
 	@Override
 	public Color apply(Integer id) {
-		for (TypedSetGroup g : groups()) {
-			if (g.contains(id))
-				return g.getColor();
-		}
-		return Color.NOT_A_NUMBER_COLOR;
+		int index = indexOf(id);
+		if (index < 0)
+			return Color.NOT_A_NUMBER_COLOR;
+		return groups().get(index).getColor();
 	}
 
 	public int indexOf(Integer id) {
-		int i = 0;
-		for (TypedSetGroup g : groups()) {
-			if (g.contains(id))
-				return i;
-			i++;
-		}
-		return -1;
+		if (id == null)
+			return -1;
+		return groups.indexOfGroup(id.intValue());
 	}
 
 	@Override
@@ -211,4 +209,9 @@ public class StratificationDataValue implements IDataValues, Function<Integer, C
 			EventPublisher.trigger(new DataSetSelectedEvent(reference));
 	}
 
+	@Override
+	public void onReordered(EDimension dim, TypedList order) {
+
+	}
+
 }
@@ -5,6 +5,8 @@
  *******************************************************************************/
 package org.caleydo.view.domino.internal.data;
 
+import gleem.linalg.Vec2f;
+
 import java.util.Collection;
 
 import org.caleydo.core.data.collection.EDimension;
@@ -52,8 +54,9 @@ public class TransposedDataValues implements IDataValues {
 	}
 
 	@Override
-	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose) {
-		wrappee.fill(b, dimData, recData, existNeigbhor, mediumTranspose);
+	public void fill(Builder b, TypedList dimData, TypedList recData, boolean[] existNeigbhor, boolean mediumTranspose,
+			Vec2f size) {
+		wrappee.fill(b, dimData, recData, existNeigbhor, mediumTranspose, size);
 	}
 
 	@Override
@@ -75,4 +78,9 @@ public class TransposedDataValues implements IDataValues {
 	public void onSelectionChanged(boolean selected) {
 		wrappee.onSelectionChanged(selected);
 	}
+
+	@Override
+	public void onReordered(EDimension dim, TypedList order) {
+		wrappee.onReordered(dim.opposite(), order);
+	}
 }
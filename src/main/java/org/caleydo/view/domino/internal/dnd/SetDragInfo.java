@@ -14,6 +14,7 @@ import org.caleydo.core.id.IDType;
 import org.caleydo.core.view.opengl.canvas.ITransferSerializer;
 import org.caleydo.core.view.opengl.layout2.dnd.IDragInfo;
 import org.caleydo.view.domino.api.model.typed.TypedSet;
+import org.caleydo.view.domino.api.model.typed.TypedSets;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -28,7 +29,7 @@ public class SetDragInfo implements IDragInfo {
 
 	public SetDragInfo(String label, TypedSet set, EDimension dim) {
 		this.label = label;
-		this.set = set;
+		this.set = TypedSets.intern(set);
 		this.dim = dim;
 	}
 
@@ -30,6 +30,7 @@ import org.caleydo.view.domino.api.model.typed.ITypedGroup;
 import org.caleydo.view.domino.api.model.typed.TypedListGroup;
 import org.caleydo.view.domino.api.model.typed.TypedSet;
 import org.caleydo.view.domino.api.model.typed.TypedSetGroup;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -126,7 +127,7 @@ public class Utils {
 		List<Color> colors = getGroupColors(referenceId, (ATableBasedDataDomain) p.getDataDomain(), groups, mainDim);
 		List<TypedSetGroup> r = new ArrayList<>();
 		for (int i = 0; i < groups.size(); ++i) {
-			r.add(new TypedSetGroup(ImmutableSet.copyOf(va.getIDsOfGroup(i)), va.getIdType(), groups.get(i)
+			r.add(new TypedSetGroup(RoaringSet.of(va.getIDsOfGroup(i)), va.getIdType(), groups.get(i)
 					.getLabel(), colors.get(i)));
 		}
 		return ImmutableList.copyOf(r);
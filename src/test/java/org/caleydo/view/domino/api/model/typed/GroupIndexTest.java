@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.caleydo.core.data.collection.EDataType;
+import org.caleydo.core.id.IDCategory;
+import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+import org.junit.Test;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class GroupIndexTest {
+	private static final IDType ID_TYPE = IDType.registerType("DOMINO_GROUP_INDEX_TEST",
+			IDCategory.registerCategory("DOMINO_GROUP_INDEX_TEST"), EDataType.INTEGER);
+
+	private static TypedSet set(int... ids) {
+		return new TypedSet(RoaringSet.of(ids), ID_TYPE);
+	}
+
+	@Test
+	public void testDenseFirstGroupWins() {
+		GroupIndex index = GroupIndex.of(Arrays.asList(set(1, 2, 3), set(3, 4), set(0, 4, 5)));
+		assertEquals(2, index.indexOf(0));
+		assertEquals(0, index.indexOf(1));
+		assertEquals(0, index.indexOf(3));
+		assertEquals(1, index.indexOf(4));
+		assertEquals(2, index.indexOf(5));
+		assertEquals(-1, index.indexOf(6));
+		assertEquals(-1, index.indexOf(-1));
+		assertEquals(-1, index.indexOf(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testSparseFirstGroupWins() {
+		// negative and widespread ids use the hashed lookup
+		GroupIndex index = GroupIndex.of(Arrays.asList(set(-5, 1 << 30), set(1 << 30, 7), set(-5, 7, 8)));
+		assertEquals(0, index.indexOf(-5));
+		assertEquals(0, index.indexOf(1 << 30));
+		assertEquals(1, index.indexOf(7));
+		assertEquals(2, index.indexOf(8));
+		assertEquals(-1, index.indexOf(0));
+		assertEquals(-1, index.indexOf(-6));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals(-1, GroupIndex.of(Collections.<TypedSet> emptyList()).indexOf(0));
+		assertEquals(-1, GroupIndex.of(Arrays.asList(set())).indexOf(0));
+	}
+}
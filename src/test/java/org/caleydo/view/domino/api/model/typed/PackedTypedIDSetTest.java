@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.caleydo.core.data.collection.EDataType;
+import org.caleydo.core.id.IDCategory;
+import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.util.RoaringSet;
+import org.junit.Test;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class PackedTypedIDSetTest {
+	private static final IDCategory CATEGORY = IDCategory.registerCategory("DOMINO_PACKED_TEST");
+	private static final IDType A = IDType.registerType("DOMINO_PACKED_TEST_A", CATEGORY, EDataType.INTEGER);
+	private static final IDType B = IDType.registerType("DOMINO_PACKED_TEST_B", CATEGORY, EDataType.INTEGER);
+
+	@Test
+	public void testDistinctAndContains() {
+		long[] packed = { IDTypeCodes.pack(B, 3), IDTypeCodes.pack(A, 3), IDTypeCodes.pack(A, -7),
+				IDTypeCodes.pack(B, 3), IDTypeCodes.pack(A, 3), IDTypeCodes.pack(A, 1) };
+		PackedTypedIDSet s = PackedTypedIDSet.of(packed, packed.length - 1); // the last one is ignored
+		assertEquals(3, s.size());
+		assertTrue(s.contains(A, 3));
+		assertTrue(s.contains(A, -7));
+		assertTrue(s.contains(B, 3));
+		assertFalse(s.contains(A, 1));
+		assertFalse(s.contains(B, -7));
+		assertTrue(s.contains(new TypedID(-7, A)));
+		assertFalse(s.contains(Integer.valueOf(3)));
+	}
+
+	@Test
+	public void testSameAsHashSet() {
+		Random r = new Random(1);
+		Set<TypedID> expected = new HashSet<>();
+		long[] packed = new long[5000];
+		for (int i = 0; i < packed.length; ++i) {
+			TypedID id = new TypedID(r.nextInt(2000) - 1000, r.nextBoolean() ? A : B);
+			expected.add(id);
+			packed[i] = IDTypeCodes.pack(id.getIdType(), id.getId());
+		}
+		PackedTypedIDSet s = PackedTypedIDSet.of(packed, packed.length);
+		assertEquals(expected.size(), s.size());
+		assertEquals(expected, new HashSet<>(s));
+		assertEquals(expected, s);
+		assertEquals(s, expected);
+		assertEquals(expected.hashCode(), s.hashCode());
+	}
+
+	@Test
+	public void testToTypedSets() {
+		long[] packed = { IDTypeCodes.pack(B, 5), IDTypeCodes.pack(A, 1), IDTypeCodes.pack(B, -2),
+				IDTypeCodes.pack(A, 2) };
+		Map<IDType, Set<Integer>> sets = new HashMap<>();
+		for (TypedSet t : PackedTypedIDSet.of(packed, packed.length).toTypedSets())
+			assertTrue(sets.put(t.getIdType(), t) == null); // one set per id type
+		assertEquals(RoaringSet.of(1, 2), sets.get(A));
+		assertEquals(RoaringSet.of(5, -2), sets.get(B));
+	}
+
+	@Test
+	public void testEquals() {
+		long[] a = { IDTypeCodes.pack(A, 1), IDTypeCodes.pack(B, 2) };
+		long[] b = { IDTypeCodes.pack(B, 2), IDTypeCodes.pack(A, 1), IDTypeCodes.pack(A, 1) };
+		assertEquals(PackedTypedIDSet.of(a, a.length), PackedTypedIDSet.of(b, b.length));
+		assertFalse(PackedTypedIDSet.of(a, a.length).equals(PackedTypedIDSet.of(b, 1)));
+	}
+}
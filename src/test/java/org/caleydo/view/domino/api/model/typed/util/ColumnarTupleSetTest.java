@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class ColumnarTupleSetTest {
+
+	@Test
+	public void testDeduplicatesByValue() {
+		ColumnarTupleSet s = new ColumnarTupleSet(2);
+		int[] tuple = { 1, 2 };
+		assertTrue(s.add(tuple));
+		tuple[1] = 3; // the set keeps a copy
+		assertTrue(s.add(tuple));
+		assertFalse(s.add(new int[] { 1, 2 }));
+		assertFalse(s.add(new int[] { 1, 3 }));
+		assertEquals(2, s.size());
+		assertTrue(s.contains(new int[] { 1, 2 }));
+		assertFalse(s.contains(new int[] { 2, 1 }));
+		assertFalse(s.contains(new int[] { 1 }));
+		assertFalse(s.contains("1,2"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLength() {
+		new ColumnarTupleSet(2).add(new int[] { 1 });
+	}
+
+	@Test
+	public void testInsertionOrderAndIndexOf() {
+		Random r = new Random(1);
+		ColumnarTupleSet s = new ColumnarTupleSet(3, 4); // grows and rehashes
+		Set<List<Integer>> expected = new LinkedHashSet<>();
+		for (int i = 0; i < 20000; ++i) {
+			int[] tuple = { r.nextInt(20), r.nextInt(20), r.nextInt(100) - 50 };
+			assertEquals(expected.add(Ints.asList(tuple.clone())), s.add(tuple));
+		}
+		assertEquals(expected.size(), s.size());
+		int row = 0;
+		for (List<Integer> tuple : expected) {
+			final int[] t = Ints.toArray(tuple);
+			assertArrayEquals(t, s.row(row));
+			assertEquals(row, s.indexOf(t));
+			for (int i = 0; i < 3; ++i)
+				assertEquals(t[i], s.get(row, i));
+			row++;
+		}
+		row = 0;
+		for (int[] tuple : s)
+			assertArrayEquals(s.row(row++), tuple);
+		assertEquals(-1, s.indexOf(new int[] { 20, 0, 0 }));
+	}
+
+	@Test
+	public void testHashCodeAndEquals() {
+		Random r = new Random(2);
+		ColumnarTupleSet s = new ColumnarTupleSet(2);
+		ColumnarTupleSet reversed = new ColumnarTupleSet(2);
+		Set<List<Integer>> expected = new HashSet<>();
+		List<int[]> tuples = new ArrayList<>();
+		for (int i = 0; i < 1000; ++i) {
+			int[] tuple = { r.nextInt(), r.nextInt(50) };
+			tuples.add(tuple);
+			s.add(tuple);
+			expected.add(Ints.asList(tuple));
+		}
+		for (int i = tuples.size() - 1; i >= 0; --i)
+			reversed.add(tuples.get(i));
+		// same semantics as a set of lists
+		assertEquals(expected.hashCode(), s.hashCode());
+		assertEquals(s.hashCode(), reversed.hashCode());
+		assertEquals(s, reversed);
+		reversed.add(new int[] { 1, 100 });
+		assertFalse(s.equals(reversed));
+	}
+
+	@Test
+	public void testColumns() {
+		ColumnarTupleSet s = new ColumnarTupleSet(2);
+		s.add(new int[] { 5, 1 });
+		s.add(new int[] { 5, 2 });
+		s.add(new int[] { 7, 1 });
+		assertEquals(Ints.asList(5, 5, 7), s.column(0));
+		assertEquals(Ints.asList(1, 2, 1), s.column(1));
+		assertEquals(RoaringSet.of(5, 7), s.distinct(0));
+		assertEquals(RoaringSet.of(1, 2), s.distinct(1));
+	}
+}
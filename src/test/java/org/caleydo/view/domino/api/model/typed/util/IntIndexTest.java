@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class IntIndexTest {
+
+	@Test
+	public void testFirstOccurrenceWins() {
+		IntIndex index = IntIndex.of(Arrays.asList(7, 3, 7, -2, 3, 7));
+		assertEquals(0, index.indexOf(7));
+		assertEquals(1, index.indexOf(3));
+		assertEquals(3, index.indexOf(-2));
+		assertEquals(-1, index.indexOf(4));
+		assertTrue(index.contains(-2));
+		assertFalse(index.contains(0));
+	}
+
+	@Test
+	public void testRange() {
+		int[] data = { 1, 2, 3, 2, 1, 9 };
+		IntIndex index = IntIndex.of(data, 2, 3); // 3, 2, 1
+		assertEquals(0, index.indexOf(3));
+		assertEquals(1, index.indexOf(2));
+		assertEquals(2, index.indexOf(1));
+		assertEquals(-1, index.indexOf(9));
+	}
+
+	@Test
+	public void testRandom() {
+		Random r = new Random(1);
+		int[] data = new int[50000];
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < data.length; ++i) {
+			// multiples of a power of two, such that a poor hash would collide
+			data[i] = (r.nextInt(20000) - 10000) << 10;
+			if (!expected.containsKey(data[i]))
+				expected.put(data[i], i);
+		}
+		IntIndex index = IntIndex.of(data, 0, data.length);
+		for (int v = -10000; v < 10000; ++v) {
+			Integer e = expected.get(v << 10);
+			assertEquals(e == null ? -1 : e.intValue(), index.indexOf(v << 10));
+		}
+		assertEquals(-1, index.indexOf(1));
+	}
+
+	@Test
+	public void testEmpty() {
+		IntIndex index = IntIndex.of(new int[0], 0, 0);
+		assertEquals(-1, index.indexOf(0));
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class KeySortTest {
+
+	@After
+	public void resetParallel() {
+		KeySort.setParallelThreshold(1 << 16);
+		KeySort.setPool(null);
+	}
+
+	static int[][] randomKeys(Random r, int criteria, int size, int distinct) {
+		int[][] keys = new int[criteria][size];
+		for (int[] k : keys)
+			for (int i = 0; i < size; ++i)
+				k[i] = r.nextInt(distinct) - distinct / 2;
+		return keys;
+	}
+
+	/**
+	 * @return the expected permutation using the stable {@link Collections#sort(List, Comparator)}
+	 */
+	static int[] expected(final int[][] keys, int size) {
+		List<Integer> index = new ArrayList<>(Ints.asList(KeySort.identity(size)));
+		Collections.sort(index, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return KeySort.compare(keys, o1.intValue(), o2.intValue());
+			}
+		});
+		return Ints.toArray(index);
+	}
+
+	@Test
+	public void testStable() {
+		Random r = new Random(1);
+		for (int size : new int[] { 0, 1, 2, 15, 17, 100, 5000 }) {
+			// few distinct keys, such that there are many ties to keep in their original order
+			int[][] keys = randomKeys(r, 1, size, 4);
+			assertArrayEquals(expected(keys, size), KeySort.sortIndex(keys, size));
+		}
+	}
+
+	@Test
+	public void testLexicographic() {
+		Random r = new Random(2);
+		int[][] keys = randomKeys(r, 3, 10000, 10);
+		int[] index = KeySort.sortIndex(keys, 10000);
+		assertArrayEquals(expected(keys, 10000), index);
+		for (int i = 1; i < index.length; ++i) {
+			int prev = index[i - 1];
+			int act = index[i];
+			// lexicographic over all criteria and stable
+			int c = KeySort.compare(keys, prev, act);
+			assertTrue(c < 0 || (c == 0 && prev < act));
+		}
+	}
+
+	@Test
+	public void testDenseRank() {
+		int[][] keys = { { 5, 1, 5, 3, 1 } };
+		assertArrayEquals(new int[] { 2, 0, 2, 1, 0 }, KeySort.denseRank(keys, 5));
+	}
+
+	@Test
+	public void testParallelIsStable() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			KeySort.setPool(pool);
+			KeySort.setParallelThreshold(64); // many small tasks
+			Random r = new Random(3);
+			for (int size : new int[] { 64, 1000, 100000 }) {
+				int[][] keys = randomKeys(r, 2, size, 8);
+				assertArrayEquals(expected(keys, size), KeySort.sortIndex(keys, size));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelDefaultThreshold() {
+		final int size = (1 << 16) + 1000;
+		int[][] keys = randomKeys(new Random(4), 1, size, 100);
+		int[] parallel = KeySort.sortIndex(keys, size);
+		KeySort.setParallelThreshold(Integer.MAX_VALUE);
+		assertArrayEquals(KeySort.sortIndex(keys, size), parallel);
+		assertArrayEquals(expected(keys, size), parallel);
+	}
+}
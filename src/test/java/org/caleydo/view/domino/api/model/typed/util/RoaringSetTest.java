@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class RoaringSetTest {
+
+	/**
+	 * @return random values of a few containers, a dense one, a sparse one and some negative values
+	 */
+	private static Set<Integer> random(Random r) {
+		Set<Integer> s = new HashSet<>();
+		for (int i = 0; i < 10000; ++i)
+			s.add(r.nextInt(1 << 16)); // dense
+		for (int i = 0; i < 100; ++i)
+			s.add((3 << 16) + r.nextInt(1 << 16)); // sparse
+		for (int i = 0; i < 100; ++i)
+			s.add(-r.nextInt(100000));
+		return s;
+	}
+
+	@Test
+	public void testAddContainsRemove() {
+		RoaringSet s = new RoaringSet();
+		Set<Integer> expected = new HashSet<>();
+		Random r = new Random(1);
+		for (int i = 0; i < 20000; ++i) {
+			int v = r.nextInt(1 << 17) - (1 << 15);
+			assertEquals(expected.add(v), s.add(v));
+		}
+		assertEquals(expected.size(), s.size());
+		for (int v = -(1 << 15); v < (1 << 17); ++v)
+			assertEquals(expected.contains(v), s.contains(v));
+		for (int i = 0; i < 15000; ++i) {
+			int v = r.nextInt(1 << 17) - (1 << 15);
+			assertEquals(expected.remove(v), s.remove(v));
+		}
+		assertEquals(expected.size(), s.size());
+		assertEquals(new TreeSet<>(expected), new TreeSet<>(s));
+		s.clear();
+		assertTrue(s.isEmpty());
+		assertFalse(s.contains(0));
+	}
+
+	@Test
+	public void testAscendingIteration() {
+		Set<Integer> expected = random(new Random(2));
+		RoaringSet s = RoaringSet.of(expected);
+		List<Integer> values = new ArrayList<>(s);
+		assertEquals(new ArrayList<>(new TreeSet<>(expected)), values);
+		int[] array = s.toIntArray();
+		assertEquals(values.size(), array.length);
+		for (int i = 0; i < array.length; ++i)
+			assertEquals(values.get(i).intValue(), array[i]);
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		RoaringSet s = RoaringSet.of(random(new Random(3)));
+		Set<Integer> expected = new HashSet<>(s);
+		for (Iterator<Integer> it = s.iterator(); it.hasNext();) {
+			Integer v = it.next();
+			if (v.intValue() % 3 != 0) {
+				it.remove();
+				expected.remove(v);
+			}
+		}
+		assertEquals(expected, s);
+	}
+
+	@Test
+	public void testOfSorted() {
+		int[] values = { -5, -5, 1, 2, 2, 70000, 70000, 70001 };
+		RoaringSet s = RoaringSet.ofSorted(values, 7);
+		assertArrayEquals(new int[] { -5, 1, 2, 70000 }, s.toIntArray());
+		assertEquals(4, s.size());
+	}
+
+	@Test
+	public void testEqualsHashCode() {
+		Set<Integer> expected = random(new Random(4));
+		RoaringSet s = RoaringSet.of(expected);
+		assertEquals(expected, s);
+		assertEquals(s, expected);
+		assertEquals(expected.hashCode(), s.hashCode());
+		RoaringSet copy = s.copy();
+		assertEquals(s, copy);
+		copy.add(Integer.MAX_VALUE);
+		assertFalse(s.equals(copy));
+		assertFalse(s.contains(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testSetOperations() {
+		Random r = new Random(5);
+		for (int i = 0; i < 5; ++i) {
+			Set<Integer> a = random(r);
+			Set<Integer> b = random(r);
+			RoaringSet ra = RoaringSet.of(a);
+			RoaringSet rb = RoaringSet.of(b);
+
+			assertEquals(Sets.intersection(a, b), RoaringSet.and(ra, rb));
+			assertEquals(Sets.union(a, b), RoaringSet.or(ra, rb));
+			assertEquals(Sets.difference(a, b), RoaringSet.andNot(ra, rb));
+
+			assertEquals(Sets.intersection(a, b).size(), RoaringSet.andCardinality(ra, rb));
+			assertEquals(Sets.union(a, b).size(), RoaringSet.orCardinality(ra, rb));
+			assertEquals(Sets.difference(a, b).size(), RoaringSet.andNotCardinality(ra, rb));
+
+			// mixed with other set implementations
+			assertEquals(Sets.intersection(a, b), RoaringSet.and(ra, b));
+			assertEquals(Sets.union(a, b), RoaringSet.or(a, rb));
+			assertEquals(Sets.difference(a, b), RoaringSet.andNot(a, b));
+			assertEquals(Sets.intersection(a, b).size(), RoaringSet.andCardinality(a, b));
+		}
+	}
+}
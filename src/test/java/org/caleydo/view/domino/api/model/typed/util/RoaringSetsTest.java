@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.api.model.typed.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class RoaringSetsTest {
+
+	/**
+	 * @return k sets of different densities, every second one as a {@link RoaringSet}
+	 */
+	private static List<Set<Integer>> random(Random r, int k) {
+		List<Set<Integer>> sets = new ArrayList<>(k);
+		for (int i = 0; i < k; ++i) {
+			Set<Integer> s = new HashSet<>();
+			final int n = i % 3 == 0 ? 60000 : 2000;
+			for (int j = 0; j < n; ++j)
+				s.add(r.nextInt(1 << 17) - 1000);
+			sets.add(i % 2 == 0 ? RoaringSet.of(s) : s);
+		}
+		return sets;
+	}
+
+	private static Set<Integer> union(List<Set<Integer>> sets) {
+		Set<Integer> r = new HashSet<>();
+		for (Set<Integer> s : sets)
+			r.addAll(s);
+		return r;
+	}
+
+	private static Set<Integer> intersection(List<Set<Integer>> sets) {
+		Set<Integer> r = new HashSet<>(sets.get(0));
+		for (Set<Integer> s : sets)
+			r.retainAll(s);
+		return r;
+	}
+
+	@Test
+	public void testUnion() {
+		Random r = new Random(1);
+		for (int k = 1; k <= 6; ++k) {
+			List<Set<Integer>> sets = random(r, k);
+			assertEquals(union(sets), RoaringSets.union(sets));
+		}
+	}
+
+	@Test
+	public void testIntersection() {
+		Random r = new Random(2);
+		for (int k = 1; k <= 6; ++k) {
+			List<Set<Integer>> sets = random(r, k);
+			assertEquals(intersection(sets), RoaringSets.intersection(sets));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		assertTrue(RoaringSets.union(Collections.<Set<Integer>> emptyList()).isEmpty());
+		assertTrue(RoaringSets.intersection(Collections.<Set<Integer>> emptyList()).isEmpty());
+		List<Set<Integer>> sets = random(new Random(3), 3);
+		sets.add(new RoaringSet());
+		assertTrue(RoaringSets.intersection(sets).isEmpty());
+		assertEquals(union(sets), RoaringSets.union(sets));
+	}
+
+	@Test
+	public void testSingleIsCopied() {
+		RoaringSet a = RoaringSet.of(1, 2, 3);
+		RoaringSet u = RoaringSets.union(Arrays.<Set<Integer>> asList(a));
+		RoaringSet i = RoaringSets.intersection(Arrays.<Set<Integer>> asList(a));
+		assertEquals(a, u);
+		assertEquals(a, i);
+		assertNotSame(a, u);
+		assertNotSame(a, i);
+		u.add(4);
+		i.add(5);
+		assertEquals(3, a.size());
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.band;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.caleydo.core.data.collection.EDataType;
+import org.caleydo.core.id.IDCategory;
+import org.caleydo.core.id.IDType;
+import org.caleydo.view.domino.api.model.typed.MultiTypedSet;
+import org.caleydo.view.domino.api.model.typed.TypedGroupList;
+import org.caleydo.view.domino.api.model.typed.TypedList;
+import org.junit.Test;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class JoinIndexTest {
+	private static final IDType ID_TYPE = IDType.registerType("DOMINO_JOIN_INDEX_TEST",
+			IDCategory.registerCategory("DOMINO_JOIN_INDEX_TEST"), EDataType.INTEGER);
+
+	private static TypedGroupList list(int... ids) {
+		return TypedGroupList.createUngrouped(TypedList.of(ids, ID_TYPE));
+	}
+
+	/**
+	 * @return the target positions of the given source position in index order
+	 */
+	private static List<Integer> targets(JoinIndex index, int source) {
+		List<Integer> r = new ArrayList<>();
+		for (int i = index.start(source); i < index.end(source); ++i)
+			r.add(index.target(i));
+		return r;
+	}
+
+	/**
+	 * @return the target positions of the given source position by a nested loop
+	 */
+	private static List<Integer> expected(TypedGroupList sData, TypedGroupList tData, int source) {
+		List<Integer> r = new ArrayList<>();
+		final int id = sData.get(source).intValue();
+		if (id < 0)
+			return r;
+		for (int j = 0; j < tData.size(); ++j)
+			if (tData.get(j).intValue() == id)
+				r.add(j);
+		return r;
+	}
+
+	@Test
+	public void testPositions() {
+		// duplicates on both sides, ids without partner and an invalid one
+		TypedGroupList sData = list(4, 1, 2, 4, 9, -1);
+		TypedGroupList tData = list(2, 4, 3, 4, 1, 2);
+		MultiTypedSet shared = JoinIndex.shared(sData, tData);
+		JoinIndex index = JoinIndex.of(shared, sData, tData);
+		for (int i = 0; i < sData.size(); ++i) {
+			assertEquals(expected(sData, tData, i), targets(index, i));
+			assertEquals(expected(sData, tData, i).isEmpty(), index.isEmpty(i));
+		}
+	}
+
+	@Test
+	public void testRandom() {
+		Random r = new Random(1);
+		int[] s = new int[2000];
+		int[] t = new int[3000];
+		for (int i = 0; i < s.length; ++i)
+			s[i] = r.nextInt(1500);
+		for (int i = 0; i < t.length; ++i)
+			t[i] = r.nextInt(1500) + 500;
+		TypedGroupList sData = list(s);
+		TypedGroupList tData = list(t);
+		JoinIndex index = JoinIndex.of(JoinIndex.shared(sData, tData), sData, tData);
+		for (int i = 0; i < sData.size(); ++i)
+			assertEquals(expected(sData, tData, i), targets(index, i));
+	}
+
+	@Test
+	public void testCached() {
+		TypedGroupList sData = list(1, 2, 3);
+		TypedGroupList tData = list(3, 2);
+		MultiTypedSet shared = JoinIndex.shared(sData, tData);
+		assertSame(shared, JoinIndex.shared(sData, tData));
+		assertSame(shared, JoinIndex.shared(tData, sData)); // reused for the reverse direction
+		JoinIndex index = JoinIndex.of(shared, sData, tData);
+		assertSame(index, JoinIndex.of(shared, sData, tData));
+
+		JoinIndex.invalidateAll();
+		MultiTypedSet shared2 = JoinIndex.shared(sData, tData);
+		assertNotSame(shared, shared2);
+		assertNotSame(index, JoinIndex.of(shared2, sData, tData));
+		assertTrue(JoinIndex.of(shared2, sData, tData).isEmpty(0));
+	}
+}
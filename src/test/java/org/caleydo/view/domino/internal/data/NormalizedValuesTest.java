@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Caleydo - Visualization for Molecular Biology - http://caleydo.org
+ * Copyright (c) The Caleydo Team. All rights reserved.
+ * Licensed under the new BSD license, available at http://caleydo.org/license
+ *******************************************************************************/
+package org.caleydo.view.domino.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Samuel Gratzl
+ *
+ */
+public class NormalizedValuesTest {
+
+	/**
+	 * @return the values decoded after encoding them with the given bytes per value
+	 */
+	private static float[] roundtrip(int bytes, float... values) {
+		ByteBuffer b = ByteBuffer.allocate(values.length * bytes);
+		for (float v : values)
+			NormalizedValues.put(b, bytes, v);
+		assertEquals(0, b.remaining());
+		float[] r = new float[values.length];
+		for (int i = 0; i < r.length; ++i)
+			r[i] = NormalizedValues.get(b, bytes, i);
+		return r;
+	}
+
+	private static void assertRoundtrip(int bytes, float scale) {
+		Random r = new Random(bytes);
+		float[] values = new float[10000];
+		for (int i = 0; i < values.length; ++i)
+			values[i] = r.nextFloat();
+		float[] decoded = roundtrip(bytes, values);
+		for (int i = 0; i < values.length; ++i) // at most half a step off
+			assertEquals(values[i], decoded[i], 0.5f / scale + 1e-6f);
+	}
+
+	@Test
+	public void testFloat() {
+		float[] values = { 0, 0.123456789f, 1, Float.NaN, -3, 7 };
+		float[] decoded = roundtrip(4, values);
+		for (int i = 0; i < values.length; ++i)
+			assertEquals(values[i], decoded[i], 0);
+	}
+
+	@Test
+	public void testUInt16() {
+		assertRoundtrip(2, 65534);
+	}
+
+	@Test
+	public void testUInt8() {
+		assertRoundtrip(1, 254);
+	}
+
+	@Test
+	public void testBoundsAndNaN() {
+		for (int bytes : new int[] { 1, 2 }) {
+			float[] decoded = roundtrip(bytes, 0, 1, -0.5f, 1.5f, Float.NaN, Float.NEGATIVE_INFINITY);
+			assertEquals(0, decoded[0], 0);
+			assertEquals(1, decoded[1], 0);
+			assertEquals(0, decoded[2], 0); // clamped
+			assertEquals(1, decoded[3], 0);
+			assertTrue(Float.isNaN(decoded[4]));
+			assertEquals(0, decoded[5], 0);
+		}
+	}
+
+	@Test
+	public void testOrderPreserved() {
+		// quantized values keep the order, ties aside
+		for (int bytes : new int[] { 1, 2 }) {
+			float[] decoded = roundtrip(bytes, 0.1f, 0.2f, 0.2001f, 0.9f);
+			for (int i = 1; i < decoded.length; ++i)
+				assertTrue(decoded[i - 1] <= decoded[i]);
+		}
+	}
+
+	@Test
+	public void testQuantize() {
+		assertEquals(0, NormalizedValues.quantize(-1, 254));
+		assertEquals(254, NormalizedValues.quantize(2, 254));
+		assertEquals(127, NormalizedValues.quantize(0.5f, 254));
+		assertEquals(1, NormalizedValues.quantize(0.5f / 254 + 1e-4f, 254));
+	}
+
+	@Test
+	public void testStore() {
+		NormalizedValues v = NormalizedValues.allocate(4);
+		v.set(0, 0.25f);
+		v.set(3, Float.NaN);
+		assertEquals(0.25f, v.get(0), 0.5f / 254);
+		assertTrue(Float.isNaN(v.get(3)));
+		assertEquals(4L * NormalizedValues.bytes(), v.memory());
+		NormalizedValues copy = v.copyOf(8);
+		assertEquals(v.get(0), copy.get(0), 0);
+		assertEquals(8L * NormalizedValues.bytes(), copy.memory());
+	}
+}